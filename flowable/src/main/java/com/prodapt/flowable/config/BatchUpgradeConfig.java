@@ -0,0 +1,47 @@
+package com.prodapt.flowable.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+public class BatchUpgradeConfig {
+
+    /**
+     * Executor used to fan batch upgrade chunks out in parallel.
+     * "virtual" runs each chunk on its own virtual thread, "fork-join" uses a pool sized to the available cores.
+     * The number of chunks in flight is capped separately by the starter.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchUpgradeExecutor(@Value("${batch-upgrade.start.executor:virtual}") String executorType) {
+        if ("fork-join".equalsIgnoreCase(executorType)) {
+            log.info("Batch upgrade start executor: fork-join pool with parallelism {}", Runtime.getRuntime().availableProcessors());
+            return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        log.info("Batch upgrade start executor: virtual threads");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-upgrade-", 0).factory());
+    }
+
+    /**
+     * Runs queued batch upgrade upload jobs. Each job fans its own devices out on {@code batchUpgradeExecutor},
+     * so only a few jobs need to run at once; uploads beyond the queue capacity are rejected.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchUpgradeJobExecutor(@Value("${batch-upgrade.jobs.concurrency:2}") int concurrency,
+            @Value("${batch-upgrade.jobs.queue-capacity:20}") int queueCapacity) {
+        return new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("batch-upgrade-job-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
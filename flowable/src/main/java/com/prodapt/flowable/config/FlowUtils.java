@@ -3,13 +3,30 @@ package com.prodapt.flowable.config;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
+import org.flowable.common.engine.impl.AbstractEngineConfiguration;
+import org.flowable.common.engine.impl.EngineConfigurator;
+import org.flowable.job.service.JobServiceConfiguration;
+import org.flowable.job.service.impl.asyncexecutor.AbstractAsyncExecutor;
+import org.flowable.job.service.impl.persistence.entity.JobEntityManagerImpl;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntityManagerImpl;
 import org.flowable.spring.SpringProcessEngineConfiguration;
 import org.flowable.spring.boot.EngineConfigurationConfigurer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import com.prodapt.flowable.service.jobs.JobLanes;
+import com.prodapt.flowable.service.jobs.JobPriorityPolicy;
+import com.prodapt.flowable.service.jobs.PrioritizedJobExecutor;
+import com.prodapt.flowable.service.jobs.PriorityJobDataManager;
+import com.prodapt.flowable.service.jobs.RateLimitedTimerJobDataManager;
+import com.prodapt.flowable.service.jobs.TimerSpreadingPolicy;
+
 @Component("flowUtils")
+@EnableConfigurationProperties(JobExecutorProperties.class)
 public class FlowUtils {
 
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_INSTANT;
@@ -33,9 +50,41 @@ public class FlowUtils {
     }
 
     @Bean
-    EngineConfigurationConfigurer<SpringProcessEngineConfiguration> processEngineConfigurationEngineConfigurationConfigurer(){
+    EngineConfigurationConfigurer<SpringProcessEngineConfiguration> processEngineConfigurationEngineConfigurationConfigurer(
+            JobPriorityPolicy jobPriorityPolicy, TimerSpreadingPolicy timerSpreadingPolicy, JobLanes jobLanes,
+            PrioritizedJobExecutor prioritizedJobExecutor, @Value("${timer-release.max-per-second:50}") int timerReleaseRate){
         return engineConfiguration -> {
             engineConfiguration.setAsyncExecutorNumberOfRetries(0);
+
+            // Async jobs get a lane and a priority band when created and run in their lane's pool, most urgent first
+            // (timers that are not critical are then spread out, and due timers released at a limited rate)
+            engineConfiguration.setJobProcessors(List.of(jobPriorityPolicy, timerSpreadingPolicy));
+            engineConfiguration.setAsyncTaskExecutor(prioritizedJobExecutor);
+            if (engineConfiguration.getAsyncExecutor() instanceof AbstractAsyncExecutor asyncExecutor) {
+                asyncExecutor.setExecuteAsyncRunnableFactory(prioritizedJobExecutor);
+            }
+            engineConfiguration.addConfigurator(new EngineConfigurator() {
+                @Override
+                public void beforeInit(AbstractEngineConfiguration configuration) {
+                }
+
+                @Override
+                public void configure(AbstractEngineConfiguration configuration) {
+                    // The job service only exists once the engine is initialized, before the executor starts
+                    JobServiceConfiguration jobServiceConfiguration = engineConfiguration.getJobServiceConfiguration();
+                    PriorityJobDataManager jobDataManager = new PriorityJobDataManager(jobServiceConfiguration, jobLanes, prioritizedJobExecutor);
+                    jobServiceConfiguration.setJobDataManager(jobDataManager);
+                    jobServiceConfiguration.setJobEntityManager(new JobEntityManagerImpl(jobServiceConfiguration, jobDataManager));
+                    RateLimitedTimerJobDataManager timerJobDataManager = new RateLimitedTimerJobDataManager(jobServiceConfiguration, timerReleaseRate);
+                    jobServiceConfiguration.setTimerJobDataManager(timerJobDataManager);
+                    jobServiceConfiguration.setTimerJobEntityManager(new TimerJobEntityManagerImpl(jobServiceConfiguration, timerJobDataManager));
+                }
+
+                @Override
+                public int getPriority() {
+                    return 0;
+                }
+            });
         };
     }
 
@@ -0,0 +1,52 @@
+package com.prodapt.flowable.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Lanes of the Flowable async executor ({@code job-executor.*}), see PrioritizedJobExecutor.
+ *
+ * Every lane has its own threads and queue, so long steps (the NFX calls) cannot hold up short internal
+ * ones. A job runs in the lane that lists its step (the delegate bean of the service task, else the
+ * element id) in {@link Lane#steps}; jobs of unlisted steps and timers run in {@link #defaultLane}.
+ * Lane names are lowercase letters, digits and dashes.
+ *
+ * With {@link #virtualThreads} enabled, each job runs on a new virtual thread instead of a pooled platform
+ * thread; {@link Lane#poolSize} then only caps the jobs of the lane running at once.
+ */
+@Data
+@ConfigurationProperties(prefix = "job-executor")
+public class JobExecutorProperties {
+
+    private String defaultLane = "internal";
+
+    private Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    @Data
+    public static class Lane {
+        private int poolSize = 4;
+        // Jobs waiting for a thread; past this, jobs of the lane stay in the database until there is room
+        private int queueCapacity = 100;
+        // Most jobs of the lane taken from the database in one acquisition cycle
+        private int maxJobsPerAcquisition = 50;
+        private Set<String> steps = new LinkedHashSet<>();
+    }
+
+    @Data
+    public static class VirtualThreads {
+        private boolean enabled = false;
+        // Jobs running at once over all lanes; 0 derives it from the database pool and the NFX bulkhead
+        private int maxConcurrency = 0;
+        // Virtual threads pinned to their carrier longer than this are logged and counted
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+    }
+}
@@ -0,0 +1,233 @@
+package com.prodapt.flowable.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.prodapt.flowable.config.NfxClientProperties.Timeouts;
+import com.prodapt.flowable.service.nfx.NfxEndpointGuard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * HTTP client shared by the NFX delegates: a pooled keep-alive Apache HttpClient behind the
+ * {@link RestTemplate} bean, with connect/read/total timeouts per NFX endpoint from {@link NfxClientProperties}
+ * and a circuit breaker and bulkhead per endpoint ({@link NfxEndpointGuard}).
+ *
+ * Pool usage is published as httpcomponents.httpclient.pool.* (pool "nfx"); built through
+ * {@link RestTemplateBuilder}, the template also records http.client.requests.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(NfxClientProperties.class)
+public class NfxClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager nfxConnectionManager(NfxClientProperties properties, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getDefaults().getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getDefaults().getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.getTimeToLive()))
+                        // Re-check connections that sat idle, the NFX side may have closed them
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "nfx").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient nfxHttpClient(PoolingHttpClientConnectionManager nfxConnectionManager, NfxClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(nfxConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+                .build();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService nfxDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("nfx-deadline").daemon(true).factory());
+        // Most calls finish well before their deadline; drop their cancelled timers right away
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Runs the NFX calls of triggerable service tasks, one virtual thread per call; how many run at once is
+     * capped by NfxCallDispatcher.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService nfxCallExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("nfx-call-", 0).factory());
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient nfxHttpClient,
+            NfxClientProperties properties, ScheduledExecutorService nfxDeadlineScheduler, NfxEndpointGuard nfxEndpointGuard) {
+        return builder
+                .requestFactory(() -> new NfxRequestFactory(nfxHttpClient, properties, nfxDeadlineScheduler))
+                .additionalInterceptors(nfxEndpointGuard)
+                .build();
+    }
+
+    /**
+     * Applies the endpoint's connect and read timeouts to each request and aborts it once its total
+     * deadline passes, so a hung NFX call cannot hold an async executor thread indefinitely. The deadline
+     * is cancelled when the response is closed.
+     */
+    static class NfxRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private final NfxClientProperties properties;
+        private final ScheduledExecutorService deadlineScheduler;
+        // Hands the deadline scheduled in postProcessHttpRequest to createRequest on the same thread
+        private final ThreadLocal<ScheduledFuture<?>> scheduledDeadline = new ThreadLocal<>();
+
+        NfxRequestFactory(CloseableHttpClient httpClient, NfxClientProperties properties, ScheduledExecutorService deadlineScheduler) {
+            super(httpClient);
+            this.properties = properties;
+            this.deadlineScheduler = deadlineScheduler;
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ClientHttpRequest request = super.createRequest(uri, httpMethod);
+            ScheduledFuture<?> deadline = scheduledDeadline.get();
+            scheduledDeadline.remove();
+            return deadline != null ? new DeadlineRequest(request, deadline) : request;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+            Timeouts timeouts = properties.timeoutsFor(uri.getPath());
+            HttpClientContext context = HttpClientContext.create();
+            // A per-request connect timeout overrides the pool's default connection config
+            context.setRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                    .setConnectTimeout(Timeout.of(timeouts.getConnectTimeout()))
+                    .setResponseTimeout(Timeout.of(timeouts.getReadTimeout()))
+                    .build());
+            return context;
+        }
+
+        @Override
+        protected void postProcessHttpRequest(ClassicHttpRequest request) {
+            if (!(request instanceof HttpUriRequestBase cancellable)) {
+                return;
+            }
+            String path = request.getPath();
+            long deadlineMs = properties.timeoutsFor(path.contains("?") ? path.substring(0, path.indexOf('?')) : path)
+                    .getTotalTimeout().toMillis();
+            scheduledDeadline.set(deadlineScheduler.schedule(() -> {
+                log.warn("Aborting NFX call {} {} after its {} ms deadline", request.getMethod(), path, deadlineMs);
+                cancellable.cancel();
+            }, deadlineMs, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private record DeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> deadline) implements ClientHttpRequest {
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            try {
+                return new DeadlineResponse(delegate.execute(), deadline);
+            } catch (IOException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+    }
+
+    private record DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            deadline.cancel(false);
+            delegate.close();
+        }
+    }
+}
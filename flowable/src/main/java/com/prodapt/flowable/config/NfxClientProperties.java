@@ -0,0 +1,98 @@
+package com.prodapt.flowable.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Connection pool and timeouts of the HTTP client the NFX delegates call through ({@code nfx.client.*}).
+ *
+ * Timeouts in {@link #defaults} apply to every call; an entry in {@link #endpoints} overrides them for one
+ * NFX path, keyed by the path with underscores written as dashes (e.g. {@code reboot-device} for
+ * {@code /reboot_device}). Unset values fall back to the defaults.
+ *
+ * {@link #circuitBreaker} and {@link #bulkhead} are applied to every endpoint separately, see NfxEndpointGuard.
+ */
+@Data
+@ConfigurationProperties(prefix = "nfx.client")
+public class NfxClientProperties {
+
+    private int maxConnections = 200;
+
+    private int maxConnectionsPerRoute = 100;
+
+    // How long a call may wait for a free pooled connection
+    private Duration connectionRequestTimeout = Duration.ofSeconds(10);
+
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    private Timeouts defaults = new Timeouts(Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(60));
+
+    private Map<String, Timeouts> endpoints = new HashMap<>();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /**
+     * Timeouts for the endpoint at {@code path}, with unset values taken from the defaults.
+     */
+    public Timeouts timeoutsFor(String path) {
+        Timeouts endpoint = endpoints.get(endpointKey(path));
+        if (endpoint == null) {
+            return defaults;
+        }
+        return new Timeouts(
+                endpoint.getConnectTimeout() != null ? endpoint.getConnectTimeout() : defaults.getConnectTimeout(),
+                endpoint.getReadTimeout() != null ? endpoint.getReadTimeout() : defaults.getReadTimeout(),
+                endpoint.getTotalTimeout() != null ? endpoint.getTotalTimeout() : defaults.getTotalTimeout());
+    }
+
+    /**
+     * The key an NFX path is configured and reported under: {@code /reboot_device} becomes {@code reboot-device}.
+     */
+    public static String endpointKey(String path) {
+        String key = path.startsWith("/") ? path.substring(1) : path;
+        return key.replace('_', '-');
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Timeouts {
+        private Duration connectTimeout;
+        // Longest wait for response data (socket inactivity)
+        private Duration readTimeout;
+        // Deadline for the whole call, after which it is aborted
+        private Duration totalTimeout;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        // Share of failed calls (I/O errors and 5xx responses) among the last sliding-window-size calls that opens it
+        private int failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        // No decision before this many calls were recorded
+        private int minimumCalls = 10;
+        // How long an open circuit rejects calls before letting a probe through
+        private Duration openDuration = Duration.ofSeconds(30);
+        // Probe calls allowed while half-open; all must succeed to close it again
+        private int halfOpenCalls = 1;
+    }
+
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 50;
+        // How long a call waits for a free slot before it is rejected
+        private Duration maxWait = Duration.ZERO;
+    }
+}
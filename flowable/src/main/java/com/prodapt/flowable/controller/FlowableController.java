@@ -1,10 +1,13 @@
 package com.prodapt.flowable.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,14 +22,22 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import com.prodapt.flowable.entity.LogEntry;
 import com.prodapt.flowable.entity.Task;
-import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.service.ElasticsearchService.LogPage;
 import com.prodapt.flowable.service.FlowableService;
 import com.prodapt.flowable.service.FlowableService.DiagramResponse;
 import com.prodapt.flowable.service.FlowableService.RescheduleRequest;
 import com.prodapt.flowable.service.FlowableService.WorkflowFilterRequest;
+import com.prodapt.flowable.service.nfx.NfxEndpointGuard;
+import com.prodapt.flowable.service.scheduler.BatchUpgradeJob;
+import com.prodapt.flowable.service.scheduler.BatchUpgradeJobService;
 import com.prodapt.flowable.service.scheduler.SchedulingService;
 import com.prodapt.flowable.service.scheduler.SchedulingService.DeviceRequest;
 
@@ -45,10 +56,30 @@ public class FlowableController {
 	@Autowired
 	private SchedulingService schedulingService;
 
+	@Autowired
+	private BatchUpgradeJobService batchUpgradeJobService;
+
+	@Autowired
+	private NfxEndpointGuard nfxEndpointGuard;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Page mode (page, size) returns a Page with its total count. Cursor mode (paging=cursor, or a cursor from
+	 * a previous slice) returns a WorkflowExecutionSlice and only counts when asked with total=exact or estimate.
+	 * Rows carry the grid columns, or only the attributes listed in fields (e.g. fields=deviceId,status).
+	 */
 	@PostMapping("/api/workflow-executions")
-	public ResponseEntity<Page<WorkflowExecution>> getWorkflowExecutions(@RequestParam(defaultValue = "0") int page,
-			@RequestParam(defaultValue = "10") int size, @RequestBody(required = false)  WorkflowFilterRequest filter) {
-		return ResponseEntity.ok(flowableService.getWorkflowExecutions(page, size, filter));
+	public ResponseEntity<?> getWorkflowExecutions(@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "page") String paging,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "none") String total,
+			@RequestParam(required = false) List<String> fields,
+			@RequestBody(required = false)  WorkflowFilterRequest filter) {
+		if ("cursor".equals(paging) || cursor != null) {
+			return ResponseEntity.ok(flowableService.getWorkflowExecutionSlice(size, filter, fields, cursor, total));
+		}
+		return ResponseEntity.ok(flowableService.getWorkflowExecutions(page, size, filter, fields));
 	}
 
 	@GetMapping("/api/process-instance/{processInstanceId}/diagram")
@@ -81,6 +112,33 @@ public class FlowableController {
 		return ResponseEntity.ok(flowableService.getLogs(flowId));
 	}
 
+	@GetMapping("/api/logs/page")
+	public ResponseEntity<LogPage> getLogsPage(@RequestParam String flowId, @RequestParam(required = false) String step,
+			@RequestParam(required = false) String status, @RequestParam(required = false) List<String> fields,
+			@RequestParam(required = false) Integer size, @RequestParam(required = false) String cursor) {
+		return ResponseEntity.ok(flowableService.getLogsPage(flowId, step, status, fields, size, cursor));
+	}
+
+	@GetMapping(value = "/api/logs/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportLogs(@RequestParam String flowId,
+			@RequestParam(required = false) String step, @RequestParam(required = false) String status,
+			@RequestParam(required = false) List<String> fields) {
+		// Fields left out by the source filter are omitted instead of written as null
+		ObjectWriter writer = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL).writer();
+		StreamingResponseBody body = (OutputStream out) -> flowableService.exportLogs(flowId, step, status, fields, entry -> {
+			try {
+				out.write(writer.writeValueAsBytes(entry));
+				out.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.header("Content-Disposition", "attachment; filename=logs-" + flowId + ".ndjson")
+				.body(body);
+	}
+
 	@GetMapping("/api/tasks/{taskId}")
 	public ResponseEntity<Task> getTaskById(@PathVariable String taskId) {
 		try {
@@ -105,13 +163,24 @@ public class FlowableController {
 	}
 
 	@PostMapping(value = "/api/batch-upgrade/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-	public ResponseEntity<Map<String, Object>> uploadBatchUpgradeExcel(@RequestPart("file") MultipartFile file) {
+	public ResponseEntity<Map<String, Object>> uploadBatchUpgradeExcel(@RequestPart("file") MultipartFile file,
+			@RequestParam(defaultValue = "true") boolean async) {
 		try {
+			if (async) {
+				BatchUpgradeJob job = batchUpgradeJobService.submit(file);
+				Map<String, Object> response = job.toStatus();
+				response.put("statusUrl", "/api/batch-upgrade/jobs/" + job.getId());
+				return ResponseEntity.accepted().body(response);
+			}
 			Map<String, Object> response = schedulingService.processBatchUpgradeExcel(file);
 			if (response.containsKey("status") && response.get("status").equals(HttpStatus.BAD_REQUEST)) {
 				return ResponseEntity.badRequest().body(response);
 			}
 			return ResponseEntity.ok(response);
+		} catch (RejectedExecutionException e) {
+			log.warn("Batch upgrade job queue is full, rejecting upload {}", file.getOriginalFilename());
+			Map<String, Object> errorResponse = Map.of("message", "Too many batch upgrade uploads in progress, please retry later");
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
 		} catch (Exception e) {
 			log.error("Error processing Excel file upload", e);
 			String errorMessage = e.getMessage() != null ? e.getMessage() : "Unknown error occurred";
@@ -120,6 +189,19 @@ public class FlowableController {
 		}
 	}
 
+	@GetMapping("/api/batch-upgrade/jobs/{jobId}")
+	public ResponseEntity<Map<String, Object>> getBatchUpgradeJob(@PathVariable String jobId) {
+		return batchUpgradeJobService.getJob(jobId)
+				.map(job -> ResponseEntity.ok(job.toStatus()))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(Map.of("message", "Batch upgrade job not found or expired")));
+	}
+
+	@GetMapping("/api/nfx/endpoints")
+	public ResponseEntity<List<Map<String, Object>>> getNfxEndpoints() {
+		return ResponseEntity.ok(nfxEndpointGuard.snapshot());
+	}
+
 	@PostMapping("/api/batch-upgrade/confirm/{overwriteId}")
 	public ResponseEntity<Map<String, Object>> confirmBatchUpgradeOverwrites(@PathVariable String overwriteId) {
 		Map<String, Object> response = schedulingService.confirmBatchUpgradeOverwrites(overwriteId);
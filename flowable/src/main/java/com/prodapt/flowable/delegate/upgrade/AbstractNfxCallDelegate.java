@@ -0,0 +1,201 @@
+package com.prodapt.flowable.delegate.upgrade;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.TriggerableJavaDelegate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import com.prodapt.flowable.service.ElasticsearchService;
+import com.prodapt.flowable.service.nfx.DeviceCheckCache;
+import com.prodapt.flowable.service.nfx.NfxCallDispatcher;
+
+/**
+ * A device step that is one NFX call.
+ *
+ * execute() logs the step, builds the request and, for a triggerable service task, hands it to
+ * {@link NfxCallDispatcher} and returns; trigger() continues with the recorded response. A task that is not
+ * triggerable makes the call on the executor thread. Subclasses name the endpoint and step and may add to the
+ * request ({@link #buildRequest}), read a successful response ({@link #handleResponse}) or end a failed step
+ * differently ({@link #failure}); compatibility checks are answered from {@link DeviceCheckCache}
+ * ({@link #cachesResponses}), steps that change the device invalidate it ({@link #changesDevice}), and calls
+ * that must not be repeated are not sent again by the stale sweep ({@link #idempotent}).
+ */
+public abstract class AbstractNfxCallDelegate implements TriggerableJavaDelegate {
+
+    @Autowired
+    protected ElasticsearchService elasticsearchService;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private NfxCallDispatcher nfxCallDispatcher;
+
+    @Autowired
+    private DeviceCheckCache deviceCheckCache;
+
+    @Value("${nfx.service.base.mock.url}")
+    private String baseUrl;
+
+    @Value("${nfx.service.auth.token:}")
+    private String authToken;
+
+    private final String endpoint;
+    private final String step;
+    private final String action;
+    private final String description;
+
+    /**
+     * @param endpoint    path of the NFX call, e.g. "/reboot_device"
+     * @param step        step logged for the task, or null to log the process's "step" variable
+     * @param action      what the STARTED event says the step is doing, e.g. "Running device reboot"
+     * @param description what the SUCCESS and FAILED events name the step, e.g. "Device reboot"
+     */
+    protected AbstractNfxCallDelegate(String endpoint, String step, String action, String description) {
+        this.endpoint = endpoint;
+        this.step = step;
+        this.action = action;
+        this.description = description;
+    }
+
+    @Override
+    public void execute(DelegateExecution execution) {
+        String deviceId = (String) execution.getVariable("deviceId");
+        String flowId = execution.getProcessInstanceId();
+        String step = step(execution);
+        if (changesDevice()) {
+            // The device changes from here on, earlier compatibility check results no longer hold
+            deviceCheckCache.invalidate(deviceId);
+        }
+
+        String url = baseUrl + endpoint;
+
+        try {
+            elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", step, "STARTED", action + " via " + url);
+
+            HttpEntity<Map<String, String>> entity = new HttpEntity<>(buildRequest(execution, flowId, deviceId, step), headers());
+            // Same check for the same device shortly before: answer from the cache instead of calling NFX
+            ResponseEntity<String> cached = cachesResponses() ? deviceCheckCache.get(deviceId, endpoint) : null;
+            if (nfxCallDispatcher.isNonBlocking(execution)) {
+                if (cached != null) {
+                    nfxCallDispatcher.respond(execution, cached);
+                } else {
+                    nfxCallDispatcher.dispatch(execution, url, entity, idempotent());
+                }
+                return;
+            }
+            complete(execution, flowId, deviceId, step, cached != null ? cached : restTemplate.exchange(url, HttpMethod.POST, entity, String.class));
+        } catch (Exception ex) {
+            throw failed(flowId, deviceId, step, ex);
+        }
+    }
+
+    /**
+     * Continues the step once the NFX response of a dispatched call has been recorded.
+     */
+    @Override
+    public void trigger(Context context) {
+        DelegateExecution execution = context.getExecution();
+        String deviceId = (String) execution.getVariable("deviceId");
+        String flowId = execution.getProcessInstanceId();
+        String step = step(execution);
+
+        try {
+            complete(execution, flowId, deviceId, step, nfxCallDispatcher.takeResponse(execution));
+        } catch (Exception ex) {
+            throw failed(flowId, deviceId, step, ex);
+        }
+    }
+
+    /**
+     * The step logged for this task.
+     */
+    protected String step(DelegateExecution execution) {
+        return step != null ? step : (String) execution.getVariable("step");
+    }
+
+    /**
+     * The body of the NFX call; by default the flow, device and step.
+     */
+    protected Map<String, String> buildRequest(DelegateExecution execution, String flowId, String deviceId, String step) {
+        Map<String, String> request = new HashMap<>();
+        request.put("flowInstanceID", flowId);
+        request.put("deviceID", deviceId);
+        request.put("step", step);
+        return request;
+    }
+
+    /**
+     * Reads a successful (2xx) response, e.g. into process variables, before the step is logged as SUCCESS.
+     */
+    protected void handleResponse(DelegateExecution execution, ResponseEntity<String> response) {
+    }
+
+    /**
+     * The exception that ends the step when its call failed, after the failure was logged with message; by
+     * default one that fails the job.
+     */
+    protected RuntimeException failure(String message, Exception cause) {
+        return new RuntimeException(getClass().getSimpleName() + " failed", cause);
+    }
+
+    /**
+     * Whether sending the call twice has the same effect as sending it once. A call that is not is never sent
+     * again when its response is lost; the step fails instead.
+     */
+    protected boolean idempotent() {
+        return true;
+    }
+
+    /**
+     * Whether successful responses are kept in DeviceCheckCache and repeat calls answered from it.
+     */
+    protected boolean cachesResponses() {
+        return false;
+    }
+
+    /**
+     * Whether the step changes the device, so that cached compatibility check results are dropped.
+     */
+    protected boolean changesDevice() {
+        return false;
+    }
+
+    private void complete(DelegateExecution execution, String flowId, String deviceId, String step, ResponseEntity<String> resp) {
+        if (resp.getStatusCode().is2xxSuccessful()) {
+            if (cachesResponses()) {
+                deviceCheckCache.put(deviceId, endpoint, resp);
+            }
+            handleResponse(execution, resp);
+            elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", step, "SUCCESS",
+                    description + " API responded with status " + resp.getStatusCode().value());
+        } else {
+            elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", step, "FAILED",
+                    description + " API responded with non-2xx status " + resp.getStatusCode().value());
+            throw new RuntimeException(getClass().getSimpleName() + " failed with status " + resp.getStatusCode().value());
+        }
+    }
+
+    private RuntimeException failed(String flowId, String deviceId, String step, Exception ex) {
+        String message = description + " failed: " + ex.getMessage();
+        elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", step, "FAILED", message);
+        return failure(message, ex);
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Content-Type", "application/json");
+        if (authToken != null && !authToken.isBlank()) {
+            headers.set("Authorization", authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
+        }
+        return headers;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 
 import com.prodapt.flowable.service.ElasticsearchService;
 import com.prodapt.flowable.service.EmailService;
+import com.prodapt.flowable.service.reminder.ReminderSweeper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,6 +21,9 @@ public class ReminderEmailDelegate implements JavaDelegate {
     @Autowired
     private ElasticsearchService elasticsearchService;
 
+    @Autowired
+    private ReminderSweeper reminderSweeper;
+
     @Override
     public void execute(DelegateExecution execution) {
         String deviceId = (String) execution.getVariable("deviceId");
@@ -41,6 +45,15 @@ public class ReminderEmailDelegate implements JavaDelegate {
 
         String flowId = execution.getProcessInstanceId();
 
+        // Process instances started before the reminder sweeper was enabled still run their reminder timers;
+        // skip a slot the sweeper has already sent
+        java.time.Instant scheduledInstant = scheduledObj instanceof java.time.Instant instant ? instant
+                : scheduledObj instanceof java.time.ZonedDateTime zoned ? zoned.toInstant() : null;
+        if (!reminderSweeper.claimLatest(deviceId, flowId, scheduledInstant)) {
+            log.info("Reminder for deviceId: {} and flowId: {} already sent by the reminder sweeper", deviceId, flowId);
+            return;
+        }
+
         try {
             elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "send-reminder-email", "STARTED",
                     "Starting reminder email sending - scheduled date: " + scheduledUpgradeDateTime + ", recipient: " + customerEmail);
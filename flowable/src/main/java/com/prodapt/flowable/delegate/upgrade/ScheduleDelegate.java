@@ -8,8 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.prodapt.flowable.entity.WorkflowExecution;
-import com.prodapt.flowable.repository.WorkflowExecutionRepository;
 import com.prodapt.flowable.service.ElasticsearchService;
+import com.prodapt.flowable.service.WorkflowExecutionUpdater;
 import com.prodapt.flowable.service.scheduler.SchedulingService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -22,7 +22,7 @@ public class ScheduleDelegate implements JavaDelegate {
     private SchedulingService schedulingService;
 
     @Autowired
-    private WorkflowExecutionRepository workflowExecutionRepository;
+    private WorkflowExecutionUpdater workflowExecutionUpdater;
 
     @Autowired
     private ElasticsearchService elasticsearchService;
@@ -36,21 +36,18 @@ public class ScheduleDelegate implements JavaDelegate {
             elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-assignment", "STARTED",
                     "Starting workflow scheduling and task assignment");
 
-            WorkflowExecution workflowExec = workflowExecutionRepository.findById(flowId)
+            // Assign workflow to task (create new or append to existing)
+            WorkflowExecution workflowExec = workflowExecutionUpdater.update(flowId, workflow ->
+                    schedulingService.assignWorkflowToTask(workflow.getScheduledTime(), workflow.getAssignedDtac(), workflow))
                 .orElseThrow(() -> new RuntimeException("Workflow execution not found: " + flowId));
 
             ZonedDateTime scheduledTime = workflowExec.getScheduledTime();
             String assignedDtac = workflowExec.getAssignedDtac();
 
-            // Assign workflow to task (create new or append to existing)
-            schedulingService.assignWorkflowToTask(scheduledTime, assignedDtac, workflowExec);
-
             // Set pre-upgrade time (3 days before scheduled time)
             ZonedDateTime preUpgradeTime = scheduledTime.minusDays(3);
             execution.setVariable("preUpgradeDateTime", preUpgradeTime.toInstant());
 
-            workflowExecutionRepository.save(workflowExec);
-
             elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-assignment", "SUCCESS",
                     "Workflow scheduled successfully - scheduled time: " + scheduledTime + ", assigned DTAC: " + assignedDtac + ", pre-upgrade time: " + preUpgradeTime);
 
@@ -7,12 +7,10 @@ import org.flowable.engine.delegate.JavaDelegate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.prodapt.flowable.entity.Task;
 import com.prodapt.flowable.entity.WorkflowExecution;
-import com.prodapt.flowable.repository.TaskRepository;
-import com.prodapt.flowable.repository.WorkflowExecutionRepository;
 import com.prodapt.flowable.service.ElasticsearchService;
 import com.prodapt.flowable.service.EmailService;
+import com.prodapt.flowable.service.WorkflowExecutionUpdater;
 import com.prodapt.flowable.service.scheduler.SchedulingService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -31,10 +29,7 @@ public class ScheduleModifierDelegate implements JavaDelegate {
     private SchedulingService schedulingService;
 
     @Autowired
-    private WorkflowExecutionRepository workflowExecutionRepository;
-
-    @Autowired
-    private TaskRepository taskRepository;
+    private WorkflowExecutionUpdater workflowExecutionUpdater;
 
     @Override
     public void execute(DelegateExecution execution) {
@@ -51,42 +46,34 @@ public class ScheduleModifierDelegate implements JavaDelegate {
             ZonedDateTime newScheduledTime = (ZonedDateTime) execution.getVariable("newScheduledUpgradeDateTime");
 
             if (newScheduledTime != null) {
-                WorkflowExecution workflowExec = workflowExecutionRepository.findById(flowId)
-                    .orElseThrow(() -> new RuntimeException("Workflow execution not found: " + flowId));
-
-                // Check reschedule limit
-                Integer currentCount = workflowExec.getReScheduleCount() != null ? workflowExec.getReScheduleCount() : 0;
-                if (currentCount >= 3) {
-                    elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-modifier", "FAILED",
-                            "Reschedule limit exceeded. Maximum 3 reschedules allowed.");
-                    throw new RuntimeException("Reschedule limit exceeded. Maximum 3 reschedules allowed.");
-                }
-
-                // Unassign from existing task
-                if (workflowExec.getTask() != null) {
-                    Task existingTask = workflowExec.getTask();
-                    existingTask.getWorkflows().remove(workflowExec);
-                    existingTask.setWorkflowCount(existingTask.getWorkflowCount() - 1);
-                    taskRepository.save(existingTask);
-                    workflowExec.setTask(null);
-                }
-
-                // Update workflow with new schedule
-                workflowExec.setScheduledTime(newScheduledTime);
-                workflowExec.setReScheduleCount(currentCount + 1);
+                WorkflowExecution workflowExec = workflowExecutionUpdater.update(flowId, workflow -> {
+                    // Check reschedule limit
+                    Integer currentCount = workflow.getReScheduleCount() != null ? workflow.getReScheduleCount() : 0;
+                    if (currentCount >= 3) {
+                        elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-modifier", "FAILED",
+                                "Reschedule limit exceeded. Maximum 3 reschedules allowed.");
+                        throw new RuntimeException("Reschedule limit exceeded. Maximum 3 reschedules allowed.");
+                    }
+
+                    // Unassign from existing task
+                    schedulingService.releaseWorkflowFromTask(workflow);
+
+                    // Update workflow with new schedule
+                    workflow.setScheduledTime(newScheduledTime);
+                    workflow.setReScheduleCount(currentCount + 1);
+
+                    // Reassign to new task
+                    schedulingService.assignWorkflowToTask(newScheduledTime, workflow.getAssignedDtac(), workflow);
+                }).orElseThrow(() -> new RuntimeException("Workflow execution not found: " + flowId));
+                int rescheduleCount = workflowExec.getReScheduleCount();
 
                 // Set pre-upgrade time (3 days before)
                 ZonedDateTime preUpgradeTime = newScheduledTime.minusDays(3);
                 execution.setVariable("scheduledUpgradeDateTime", newScheduledTime.toInstant());
                 execution.setVariable("preUpgradeDateTime", preUpgradeTime.toInstant());
 
-                // Reassign to new task
-                schedulingService.assignWorkflowToTask(newScheduledTime, workflowExec.getAssignedDtac(), workflowExec);
-
-                workflowExecutionRepository.save(workflowExec);
-
                 // Calculate remaining reschedules (max 3 allowed)
-                Integer remainingReschedules = 3 - (currentCount + 1);
+                Integer remainingReschedules = 3 - rescheduleCount;
 
                 // Send reschedule confirmation email
 //                emailService.sendRescheduleEmail(workflowExec.getLocalCustomerEmailContact(), deviceId,
@@ -94,7 +81,7 @@ public class ScheduleModifierDelegate implements JavaDelegate {
 
                 elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-modifier", "COMPLETED",
                         "Schedule modified - new scheduled time: " + newScheduledTime + ", pre-upgrade time: " + preUpgradeTime);
-                log.info("Workflow {} rescheduled to {} (reschedule #{})", flowId, newScheduledTime, currentCount + 1);
+                log.info("Workflow {} rescheduled to {} (reschedule #{})", flowId, newScheduledTime, rescheduleCount);
             } else {
                 elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "schedule-modifier", "FAILED",
                         "No new scheduled time provided in reschedule message");
@@ -0,0 +1,29 @@
+package com.prodapt.flowable.delegate.upgrade.compatibilityDelegates;
+
+import org.flowable.engine.delegate.BpmnError;
+
+import com.prodapt.flowable.delegate.upgrade.AbstractNfxCallDelegate;
+
+/**
+ * One of the Bluejacket, BIOS, NIC and SSD verifications of the Device Compatibility Check subprocess.
+ *
+ * A failed verification ends with the compatibilityCheckFailed BPMN error rather than a failed job, whether the
+ * call failed in execute() or its response in trigger(): the task's error boundary event records the message
+ * and the branch continues to the join, where CompatibilityCheckAggregator fails the subprocess.
+ */
+abstract class AbstractVerifyAndUpgradeDelegate extends AbstractNfxCallDelegate {
+
+    AbstractVerifyAndUpgradeDelegate(String endpoint, String action, String description) {
+        super(endpoint, null, action, description);
+    }
+
+    @Override
+    protected RuntimeException failure(String message, Exception cause) {
+        return new BpmnError(CompatibilityCheckAggregatorDelegate.ERROR_CODE, message);
+    }
+
+    @Override
+    protected boolean cachesResponses() {
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.prodapt.flowable.delegate.upgrade.compatibilityDelegates;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flowable.engine.delegate.BpmnError;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.service.ElasticsearchService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Joins the Bluejacket, BIOS, NIC and SSD verifications, which run in parallel in the Device Compatibility
+ * Check subprocess. A failing verification does not stop the others: its error boundary event records the
+ * error message in one of the variables below and the branch still reaches the join. This task then fails
+ * the subprocess once, with every failed verification in the message, by throwing the compatibilityCheckFailed
+ * BPMN error that the subprocess's boundary event routes to the "Compatibility Check Failed" end. A BPMN error
+ * is process flow rather than a job failure, so the removal of the error variables is committed with it.
+ */
+@Slf4j
+@Component("CompatibilityCheckAggregator")
+@RequiredArgsConstructor
+public class CompatibilityCheckAggregatorDelegate implements JavaDelegate {
+
+    static final String ERROR_CODE = "compatibilityCheckFailed";
+
+    private static final Map<String, String> CHECK_ERRORS = new LinkedHashMap<>();
+
+    static {
+        CHECK_ERRORS.put("bluejacketCheckError", "Bluejacket");
+        CHECK_ERRORS.put("biosCheckError", "BIOS");
+        CHECK_ERRORS.put("nicCheckError", "NIC");
+        CHECK_ERRORS.put("ssdCheckError", "SSD");
+    }
+
+    @Autowired
+    private final ElasticsearchService elasticsearchService;
+
+    @Override
+    public void execute(DelegateExecution execution) {
+        String deviceId = (String) execution.getVariable("deviceId");
+        String flowId = execution.getProcessInstanceId();
+        String step = (String) execution.getVariable("step");
+
+        List<String> failures = new ArrayList<>();
+        CHECK_ERRORS.forEach((variable, check) -> {
+            Object error = execution.getVariable(variable);
+            if (error != null) {
+                failures.add(check + " (" + error + ")");
+            }
+        });
+        // The next compatibility check of the device starts clean
+        execution.removeVariables(CHECK_ERRORS.keySet());
+
+        if (failures.isEmpty()) {
+            log.debug("All compatibility verifications passed for device {}", deviceId);
+            return;
+        }
+        String message = "Compatibility check failed: " + String.join(", ", failures);
+        elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", step, "FAILED", message);
+        throw new BpmnError(ERROR_CODE, message);
+    }
+}
@@ -0,0 +1,28 @@
+package com.prodapt.flowable.entity;
+
+import java.time.ZonedDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Batch upgrade overwrite session waiting for confirmation, shared between nodes.
+ * The payload is the gzipped JSON of SchedulingService.OverwriteData.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_overwrite_session_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverwriteSession {
+	@Id
+	String id;
+	ZonedDateTime createdAt;
+	ZonedDateTime expiresAt;
+	byte[] payload;
+}
@@ -0,0 +1,31 @@
+package com.prodapt.flowable.entity;
+
+import java.time.ZonedDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A reminder email sent (or being sent) for one reminder slot of a device, e.g. the -3 day reminder of its
+ * upgrade at scheduledTime. The id is "deviceId|slot|scheduledTime", so a device gets each slot once across
+ * nodes and sweeps, and a rescheduled upgrade gets a fresh set of slots.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_reminder_dispatch_device_slot", columnList = "device_id, slot, scheduled_time"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderDispatch {
+	@Id
+	String id;
+	String deviceId;
+	String slot;
+	ZonedDateTime scheduledTime;
+	String flowInstanceId;
+	ZonedDateTime dispatchedAt;
+}
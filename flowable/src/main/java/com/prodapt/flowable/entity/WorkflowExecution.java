@@ -2,24 +2,37 @@ package com.prodapt.flowable.entity;
 
 import java.time.ZonedDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.domain.Persistable;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+// Versioned, and updates only write the changed columns, so concurrent writers of different fields do not
+// overwrite each other and a writer that read the row before a status projection retries; see WorkflowExecutionUpdater
 @Entity
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class WorkflowExecution {
+public class WorkflowExecution implements Persistable<String> {
 	@Id
 	String flowInstanceId;
 	String deviceId;
@@ -34,7 +47,7 @@ public class WorkflowExecution {
 	String issuer;
 	String processName;
 	String processFlowId;
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "task_id")
 	@JsonBackReference
 	Task task;
@@ -44,6 +57,33 @@ public class WorkflowExecution {
 	ZonedDateTime lastUpdated;
 	Integer reScheduleCount;
 	String status;
+	@Version
+	Long version;
+
+	// The id is assigned from the process instance, so tell Spring Data whether to persist or merge
+	// instead of letting save() issue a SELECT for every new row
+	@Transient
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	boolean newEntity = true;
+
+	@Override
+	@JsonIgnore
+	public String getId() {
+		return flowInstanceId;
+	}
+
+	@Override
+	@JsonIgnore
+	public boolean isNew() {
+		return newEntity;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.newEntity = false;
+	}
 
 	@PrePersist
 	public void setCreatedAt() {
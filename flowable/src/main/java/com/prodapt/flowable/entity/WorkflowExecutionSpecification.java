@@ -3,13 +3,22 @@ package com.prodapt.flowable.entity;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 
 public class WorkflowExecutionSpecification {
 
+    // Properties the listing can be sorted by. Cursors keep their values as text, which after() parses back
+    // by the column's type, so only String, ZonedDateTime, Boolean and Integer columns belong here
+    public static final Set<String> SORTABLE = Set.of("flowInstanceId", "deviceId", "step", "message", "assignedDtac",
+            "createdAt", "scheduledTime", "deviceCompatibilityTime", "localCustomerEmailContact", "localCustomerMobileContact",
+            "issuer", "processName", "processFlowId", "completed", "completedTime", "lastUpdated", "reScheduleCount", "status");
+
     public static Specification<WorkflowExecution> withFilters(
             List<String> deviceIds,
             List<String> workflows,
@@ -137,4 +146,56 @@ public class WorkflowExecutionSpecification {
             completed == null ? criteriaBuilder.conjunction() 
                 : criteriaBuilder.equal(root.get("completed"), completed);
     }
+
+    /**
+     * Rows that come after the given sort values in the order of {@code orders} (keyset or seek pagination).
+     * Nulls are placed as PostgreSQL sorts them: last when ascending, first when descending.
+     *
+     * @param values the sort values of the last row seen, one per order, as strings
+     */
+    public static Specification<WorkflowExecution> after(List<Sort.Order> orders, List<String> values) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> alternatives = new ArrayList<>();
+            List<Predicate> equalSoFar = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                Sort.Order order = orders.get(i);
+                Path<Comparable<Object>> path = root.get(order.getProperty());
+                Comparable<Object> value = sortValue(values.get(i), path.getJavaType());
+
+                Predicate beyond;
+                if (order.isAscending()) {
+                    beyond = value == null ? criteriaBuilder.disjunction()
+                            : criteriaBuilder.or(criteriaBuilder.greaterThan(path, value), criteriaBuilder.isNull(path));
+                } else {
+                    beyond = value == null ? criteriaBuilder.isNotNull(path) : criteriaBuilder.lessThan(path, value);
+                }
+                List<Predicate> alternative = new ArrayList<>(equalSoFar);
+                alternative.add(beyond);
+                alternatives.add(criteriaBuilder.and(alternative.toArray(new Predicate[0])));
+
+                equalSoFar.add(value == null ? criteriaBuilder.isNull(path) : criteriaBuilder.equal(path, value));
+            }
+            return criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparable<Object> sortValue(String value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+        Comparable parsed;
+        if (ZonedDateTime.class.equals(type)) {
+            parsed = ZonedDateTime.parse(value);
+        } else if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+            parsed = Boolean.valueOf(value);
+        } else if (Integer.class.equals(type) || int.class.equals(type)) {
+            parsed = Integer.valueOf(value);
+        } else if (String.class.equals(type)) {
+            parsed = value;
+        } else {
+            throw new IllegalArgumentException("Cannot page workflow executions by a " + type.getSimpleName() + " column");
+        }
+        return parsed;
+    }
 }
@@ -0,0 +1,53 @@
+package com.prodapt.flowable.entity;
+
+import java.lang.reflect.RecordComponent;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.persistence.Tuple;
+
+/**
+ * The columns of a workflow execution the workflow grid shows; the default row of POST /api/workflow-executions.
+ * Selected as plain columns, so listing a page loads no entities and no tasks.
+ */
+public record WorkflowExecutionSummary(
+		String flowInstanceId,
+		String deviceId,
+		String step,
+		String message,
+		String assignedDtac,
+		ZonedDateTime createdAt,
+		ZonedDateTime scheduledTime,
+		String localCustomerEmailContact,
+		String issuer,
+		String processName,
+		boolean completed,
+		Integer reScheduleCount,
+		String status) {
+
+	public static final List<String> FIELDS = Arrays.stream(WorkflowExecutionSummary.class.getRecordComponents())
+			.map(RecordComponent::getName)
+			.toList();
+
+	/**
+	 * @param row a row selected with at least {@link #FIELDS}, each aliased by its name
+	 */
+	public static WorkflowExecutionSummary of(Tuple row) {
+		return new WorkflowExecutionSummary(
+				row.get("flowInstanceId", String.class),
+				row.get("deviceId", String.class),
+				row.get("step", String.class),
+				row.get("message", String.class),
+				row.get("assignedDtac", String.class),
+				row.get("createdAt", ZonedDateTime.class),
+				row.get("scheduledTime", ZonedDateTime.class),
+				row.get("localCustomerEmailContact", String.class),
+				row.get("issuer", String.class),
+				row.get("processName", String.class),
+				// completed is a nullable column in older rows; NULL reads as not completed, as the entity defaults it
+				Boolean.TRUE.equals(row.get("completed", Boolean.class)),
+				row.get("reScheduleCount", Integer.class),
+				row.get("status", String.class));
+	}
+}
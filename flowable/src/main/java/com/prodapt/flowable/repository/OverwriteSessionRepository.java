@@ -0,0 +1,23 @@
+package com.prodapt.flowable.repository;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.prodapt.flowable.entity.OverwriteSession;
+
+@Repository
+public interface OverwriteSessionRepository extends JpaRepository<OverwriteSession, String> {
+
+    @Modifying
+    @Query("DELETE FROM OverwriteSession s WHERE s.expiresAt < :now")
+    int deleteExpired(@Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OverwriteSession s WHERE s.id = :id")
+    int deleteSession(@Param("id") String id);
+}
@@ -0,0 +1,30 @@
+package com.prodapt.flowable.repository;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.prodapt.flowable.entity.ReminderDispatch;
+
+@Repository
+public interface ReminderDispatchRepository extends JpaRepository<ReminderDispatch, String> {
+
+    /**
+     * Records the dispatch unless it is already recorded; returns 1 if this call recorded it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reminder_dispatch (id, device_id, slot, scheduled_time, flow_instance_id, dispatched_at) "
+            + "VALUES (:id, :deviceId, :slot, :scheduledTime, :flowInstanceId, :dispatchedAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("id") String id, @Param("deviceId") String deviceId, @Param("slot") String slot,
+            @Param("scheduledTime") ZonedDateTime scheduledTime, @Param("flowInstanceId") String flowInstanceId,
+            @Param("dispatchedAt") ZonedDateTime dispatchedAt);
+
+    @Modifying
+    @Query("DELETE FROM ReminderDispatch r WHERE r.scheduledTime < :before")
+    int deleteScheduledBefore(@Param("before") ZonedDateTime before);
+}
@@ -5,9 +5,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.prodapt.flowable.entity.Task;
 
@@ -29,4 +31,36 @@ public interface TaskRepository extends JpaRepository<Task, String> {
     @Query("SELECT t FROM Task t WHERE t.assignedEmployee.attUid = :attUid AND t.startTime = :startTime")
     Optional<Task> findByAssignedEmployeeAttUidAndStartTime(@Param("attUid") String attUid,
                                                            @Param("startTime") ZonedDateTime startTime);
+
+    /**
+     * Adds one workflow to the DTAC's task for the slot, inserting the task with the given id when there is
+     * none. Relies on uk_task_assigned_user_start_time, so concurrent calls for the same slot share one task.
+     *
+     * A write, but not {@code @Modifying}: that would run it with executeUpdate and return the row count, and
+     * the caller needs the row RETURNING gives back. {@code @Transactional} is needed all the same, as query
+     * methods otherwise run read-only, where PostgreSQL rejects the INSERT. Like its {@code @Modifying}
+     * siblings it leaves the persistence context alone; a Task already loaded keeps its old workflowCount.
+     *
+     * @return the id of the task holding the slot
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO task (id, start_time, end_time, assigned_user_id, workflow_count)
+            VALUES (:id, :startTime, :endTime, :attUid, 1)
+            ON CONFLICT (assigned_user_id, start_time) DO UPDATE SET workflow_count = task.workflow_count + 1
+            RETURNING id""", nativeQuery = true)
+    String upsertSlot(@Param("id") String id,
+                      @Param("attUid") String attUid,
+                      @Param("startTime") ZonedDateTime startTime,
+                      @Param("endTime") ZonedDateTime endTime);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.workflowCount = t.workflowCount - 1 WHERE t.id = :id")
+    int decrementWorkflowCount(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id = :id AND t.workflowCount <= 0")
+    int deleteIfEmpty(@Param("id") String id);
 }
@@ -0,0 +1,30 @@
+package com.prodapt.flowable.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.prodapt.flowable.entity.WorkflowExecution;
+
+import jakarta.persistence.Tuple;
+
+/**
+ * Column projections of WorkflowExecution for the workflow listing.
+ */
+public interface WorkflowExecutionListRepository {
+
+    /**
+     * The given columns of the matching rows, each aliased by its attribute name.
+     *
+     * @throws IllegalArgumentException if a column is not a {@link #columnNames() column} of WorkflowExecution
+     */
+    List<Tuple> findColumns(Specification<WorkflowExecution> spec, Collection<String> columns, Sort sort, long offset, int limit);
+
+    /**
+     * The attributes of WorkflowExecution that can be selected, i.e. all but the task association.
+     */
+    Set<String> columnNames();
+}
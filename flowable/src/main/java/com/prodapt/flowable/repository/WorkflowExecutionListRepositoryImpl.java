@@ -0,0 +1,65 @@
+package com.prodapt.flowable.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.prodapt.flowable.entity.WorkflowExecution;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+
+public class WorkflowExecutionListRepositoryImpl implements WorkflowExecutionListRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Set<String> columnNames;
+
+    @Override
+    public List<Tuple> findColumns(Specification<WorkflowExecution> spec, Collection<String> columns, Sort sort, long offset, int limit) {
+        Set<String> known = columnNames();
+        for (String column : columns) {
+            if (!known.contains(column)) {
+                throw new IllegalArgumentException("Unknown workflow execution field: " + column);
+            }
+        }
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<WorkflowExecution> root = query.from(WorkflowExecution.class);
+        query.multiselect(columns.stream().<Selection<?>>map(column -> root.get(column).alias(column)).toList());
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Set<String> columnNames() {
+        if (columnNames == null) {
+            columnNames = entityManager.getMetamodel().entity(WorkflowExecution.class).getSingularAttributes().stream()
+                    .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                    .map(Attribute::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return columnNames;
+    }
+}
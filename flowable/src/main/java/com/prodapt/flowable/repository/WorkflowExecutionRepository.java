@@ -4,13 +4,25 @@ import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.prodapt.flowable.entity.WorkflowExecution;
 
-public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecution, String>, JpaSpecificationExecutor<WorkflowExecution> {
+public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecution, String>, JpaSpecificationExecutor<WorkflowExecution>,
+        WorkflowExecutionListRepository {
 
     @Query("SELECT w FROM WorkflowExecution w WHERE w.deviceId IN :deviceIds")
     List<WorkflowExecution> findByDeviceIds(@Param("deviceIds") List<String> deviceIds);
+
+    // Row count from the planner statistics; -1 until the table has been analyzed
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('workflow_execution')", nativeQuery = true)
+    Long estimateCount();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkflowExecution w SET w.task = null WHERE w.flowInstanceId = :flowInstanceId")
+    int clearTask(@Param("flowInstanceId") String flowInstanceId);
 }
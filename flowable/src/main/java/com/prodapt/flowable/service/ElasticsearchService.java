@@ -1,22 +1,29 @@
 package com.prodapt.flowable.service;
 
-import java.time.ZonedDateTime;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.query.Criteria;
-import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
-import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.stereotype.Service;
 
 import com.prodapt.flowable.entity.LogEntry;
-import com.prodapt.flowable.entity.WorkflowExecution;
-import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+import com.prodapt.flowable.service.logging.ElasticsearchLogIndexer;
+import com.prodapt.flowable.service.logging.WorkflowStatusProjector;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,7 +36,19 @@ public class ElasticsearchService {
     private final ElasticsearchOperations elasticsearchOperations;
 
     @Autowired
-    private final WorkflowExecutionRepository workflowExecutionRepository;
+    private final ElasticsearchLogIndexer logIndexer;
+
+    @Autowired
+    private final WorkflowStatusProjector statusProjector;
+
+    @Value("${elasticsearch.logs.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${elasticsearch.logs.max-page-size:1000}")
+    private int maxPageSize;
+
+    // Sort of every log query; search_after cursors carry the values of both fields
+    private static final Sort LOG_ORDER = Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id"));
 
     public void logEvent(String flowId, String deviceId, String stage, String step, String status, String message) {
         try {
@@ -52,43 +71,18 @@ public class ElasticsearchService {
             logEntry.setLogger(logger);
             logEntry.setTimestamp(System.currentTimeMillis());
 
-            // Index to Elasticsearch
-            //elasticsearchOperations.save(logEntry);
+            // Index to Elasticsearch asynchronously; never blocks the calling delegate
+            logIndexer.enqueue(logEntry);
 
             log.info("Logged event: {} - {} - {} - {}", flowId, message, step, status);
 
-            // Update WorkflowExecution entity based on the current step logging
-            updateWorkflowExecution(flowId, deviceId, step, status, message);
+            // Project the current step onto WorkflowExecution; written in coalesced batches
+            statusProjector.record(flowId, step, status, message);
         } catch (Exception e) {
             System.out.println("ES error");
         }
     }
 
-    private void updateWorkflowExecution(String flowId, String deviceId, String step, String status, String message) {
-        try {
-            WorkflowExecution workflowExecution = workflowExecutionRepository.findById(flowId).orElse(null);
-            if (workflowExecution == null) {
-                log.warn("WorkflowExecution not found for flowId: {}", flowId);
-                return;
-            }
-
-            // Update the step field, message, and status based on current logging
-            workflowExecution.setStep(step);
-            workflowExecution.setMessage(message);
-            workflowExecution.setStatus(status);
-
-            // For completed workflows, update completed status
-            if ("vnf-spinup".equals(step) && ("SUCCESS".equals(status) || "COMPLETED".equals(status))) {
-                workflowExecution.setCompleted(true);
-                workflowExecution.setCompletedTime(ZonedDateTime.now());
-            }
-
-            log.info("Updated WorkflowExecution step: {} for flowId: {}", step, flowId);
-        } catch (Exception ex) {
-            log.error("Failed to update WorkflowExecution for flowId: {}", flowId, ex);
-        }
-    }
-
     private String getCallerClassName() {
         try {
             StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
@@ -106,13 +100,108 @@ public class ElasticsearchService {
         }
     }
 
+    /**
+     * All log entries of a flow, oldest first.
+     */
     public List<LogEntry> getLogsByFlowId(String flowId) {
-        Criteria criteria = new Criteria();
-        if (flowId != null) {
-            criteria = criteria.and("flowInstanceId").is(flowId);
+        List<LogEntry> entries = new ArrayList<>();
+        forEachLog(flowId, null, null, null, entries::add);
+        return entries;
+    }
+
+    /**
+     * One page of a flow's log entries, oldest first, continuing after {@code cursor} (the {@code nextCursor}
+     * of the previous page, or null for the first page).
+     *
+     * @param fields source fields to return, or null/empty for all
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public LogPage getLogsPage(String flowId, String step, String status, List<String> fields, Integer size, String cursor) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // One extra hit tells whether another page follows without counting the total
+        SearchHits<LogEntry> hits = elasticsearchOperations.search(
+                logQuery(flowId, step, status, fields, pageSize + 1, decodeCursor(cursor)), LogEntry.class);
+
+        List<LogEntry> entries = new ArrayList<>(pageSize);
+        String nextCursor = null;
+        for (SearchHit<LogEntry> hit : hits.getSearchHits()) {
+            if (entries.size() == pageSize) {
+                break;
+            }
+            entries.add(hit.getContent());
+            nextCursor = encodeCursor(hit.getSortValues());
         }
-        CriteriaQuery query = new CriteriaQuery(criteria);
-        SearchHits<LogEntry> searchHits = elasticsearchOperations.search(query, LogEntry.class);
-        return searchHits.getSearchHits().stream().map(SearchHit::getContent).collect(Collectors.toList());
+        boolean hasMore = hits.getSearchHits().size() > pageSize;
+        return new LogPage(entries, hasMore ? nextCursor : null, hasMore);
+    }
+
+    /**
+     * Passes every matching log entry to {@code consumer}, oldest first, fetching {@code max-page-size}
+     * entries per request with search_after.
+     */
+    public void forEachLog(String flowId, String step, String status, List<String> fields, Consumer<LogEntry> consumer) {
+        List<Object> searchAfter = null;
+        while (true) {
+            SearchHits<LogEntry> hits = elasticsearchOperations.search(
+                    logQuery(flowId, step, status, fields, maxPageSize, searchAfter), LogEntry.class);
+            for (SearchHit<LogEntry> hit : hits.getSearchHits()) {
+                consumer.accept(hit.getContent());
+                searchAfter = hit.getSortValues();
+            }
+            if (hits.getSearchHits().size() < maxPageSize) {
+                return;
+            }
+        }
+    }
+
+    private NativeQuery logQuery(String flowId, String step, String status, List<String> fields, int size, List<Object> searchAfter) {
+        var builder = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> {
+                    b.filter(f -> f.term(t -> t.field("flowInstanceId").value(flowId)));
+                    if (step != null && !step.isBlank()) {
+                        b.filter(f -> f.term(t -> t.field("step").value(step)));
+                    }
+                    if (status != null && !status.isBlank()) {
+                        b.filter(f -> f.term(t -> t.field("status").value(status)));
+                    }
+                    return b;
+                }))
+                .withSort(LOG_ORDER)
+                .withPageable(PageRequest.of(0, size))
+                .withTrackTotalHits(false);
+        if (searchAfter != null) {
+            builder.withSearchAfter(searchAfter);
+        }
+        if (fields != null && !fields.isEmpty()) {
+            builder.withSourceFilter(FetchSourceFilter.of(null, fields.toArray(String[]::new), null));
+        }
+        return builder.build();
+    }
+
+    private static String encodeCursor(List<Object> sortValues) {
+        String value = sortValues.get(0) + ":" + sortValues.get(1);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Object> decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return List.of(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid log cursor: " + cursor);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class LogPage {
+        private List<LogEntry> entries;
+        // Pass as cursor to get the next page; null on the last page
+        private String nextCursor;
+        private boolean hasMore;
     }
 }
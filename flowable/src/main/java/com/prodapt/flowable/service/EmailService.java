@@ -37,7 +37,10 @@ public class EmailService {
 
 
 
-    public void sendReminderEmail(String to, String deviceId, String scheduledTime, String flowId, String msimEmail) {
+    /**
+     * @return whether the email was handed to the mail server; failures are logged to the workflow log
+     */
+    public boolean sendReminderEmail(String to, String deviceId, String scheduledTime, String flowId, String msimEmail) {
         try {
             String from = (fromEmail != null && !fromEmail.isBlank())
                 ? fromEmail
@@ -102,8 +105,10 @@ public class EmailService {
             helper.setText(htmlContent, true);
             mailSender.send(message);
             elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "send-reminder-email", "SUCCESS", "Reminder email sent from " + from + " to " + to + " via host " + mailHost + " for device " + deviceId);
+            return true;
         } catch (Exception ex) {
             elasticsearchService.logEvent(flowId, deviceId, "DeviceUpgrade", "send-reminder-email", "FAILED", "Failed to send reminder email to " + to + ": " + ex.getMessage());
+            return false;
         }
     }
 
@@ -12,10 +12,8 @@ import org.springframework.stereotype.Service;
 
 import com.prodapt.flowable.entity.Employee;
 import com.prodapt.flowable.entity.Task;
-import com.prodapt.flowable.entity.WorkflowExecution;
 import com.prodapt.flowable.repository.EmployeeRepository;
 import com.prodapt.flowable.repository.TaskRepository;
-import com.prodapt.flowable.repository.WorkflowExecutionRepository;
 import com.prodapt.flowable.service.scheduler.SchedulingService;
 
 @Service
@@ -25,7 +23,7 @@ public class EmployeeService {
     private EmployeeRepository employeeRepository;
 
     @Autowired
-    private WorkflowExecutionRepository workflowExecutionRepository;
+    private WorkflowExecutionUpdater workflowExecutionUpdater;
 
     @Autowired
     private TaskRepository taskRepository;
@@ -74,36 +72,20 @@ public class EmployeeService {
     }
 
     public void reassignWorkflow(String workflowId, String newEmployeeAttUid) {
-        // Find the workflow
-        WorkflowExecution workflow = workflowExecutionRepository.findById(workflowId)
-            .orElseThrow(() -> new RuntimeException("Workflow not found: " + workflowId));
-
         // Find new employee
-        Employee newEmployee = employeeRepository.findByAttUid(newEmployeeAttUid)
+        employeeRepository.findByAttUid(newEmployeeAttUid)
             .orElseThrow(() -> new RuntimeException("Employee not found: " + newEmployeeAttUid));
 
-        // Detach from existing task
-        if (workflow.getTask() != null) {
-            Task existingTask = workflow.getTask();
-            existingTask.getWorkflows().remove(workflow);
-            existingTask.setWorkflowCount(existingTask.getWorkflowCount() - 1);
-            workflow.setTask(null);
-
-            // If task has no workflows left, delete it
-            if (existingTask.getWorkflowCount() == 0) {
-                taskRepository.delete(existingTask);
-            } else {
-                taskRepository.save(existingTask);
-            }
-        }
-
-        // Update workflow's assigned employee
-        workflow.setAssignedDtac(newEmployeeAttUid);
+        // Move the workflow in one transaction, retried if it was modified concurrently
+        workflowExecutionUpdater.update(workflowId, workflow -> {
+            // Detach from existing task, deleting it if no workflows are left
+            schedulingService.releaseWorkflowFromTask(workflow);
 
-        // Reassign to new task using scheduling service
-        schedulingService.assignWorkflowToTask(workflow.getScheduledTime(), newEmployeeAttUid, workflow);
+            // Update workflow's assigned employee
+            workflow.setAssignedDtac(newEmployeeAttUid);
 
-        // Save workflow
-        workflowExecutionRepository.save(workflow);
+            // Reassign to new task using scheduling service
+            schedulingService.assignWorkflowToTask(workflow.getScheduledTime(), newEmployeeAttUid, workflow);
+        }).orElseThrow(() -> new RuntimeException("Workflow not found: " + workflowId));
     }
 }
@@ -1,14 +1,20 @@
 package com.prodapt.flowable.service;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.flowable.bpmn.converter.BpmnXMLConverter;
 import org.flowable.bpmn.model.BpmnModel;
@@ -19,21 +25,28 @@ import org.flowable.engine.history.HistoricActivityInstance;
 import org.flowable.engine.history.HistoricProcessInstance;
 import org.flowable.engine.runtime.Execution;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prodapt.flowable.entity.LogEntry;
 import com.prodapt.flowable.entity.Task;
 import com.prodapt.flowable.entity.WorkflowExecution;
 import com.prodapt.flowable.entity.WorkflowExecutionSpecification;
+import com.prodapt.flowable.entity.WorkflowExecutionSummary;
 import com.prodapt.flowable.repository.TaskRepository;
 import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+import com.prodapt.flowable.service.ElasticsearchService.LogPage;
 
+import jakarta.persistence.Tuple;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -54,13 +67,26 @@ public class FlowableService {
 	@Autowired
 	private WorkflowExecutionRepository workflowExecutionRepository;
 
+	@Autowired
+	private WorkflowExecutionUpdater workflowExecutionUpdater;
+
 	@Autowired
 	private ElasticsearchService elasticsearchService;
 
 	@Autowired
 	private TaskRepository taskRepository;
 
-	public Page<WorkflowExecution> getWorkflowExecutions(int page, int size, Object filter) {
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${workflow-executions.max-page-size:500}")
+	private int maxPageSize;
+
+	/**
+	 * One page of workflow executions with its total count. Rows are {@link WorkflowExecutionSummary}s, or
+	 * with {@code fields} just those columns.
+	 */
+	public Page<?> getWorkflowExecutions(int page, int size, Object filter, List<String> fields) {
 		// Assuming filter is WorkflowFilterRequest, but since it's in controller, we'll cast or adjust
 		// For now, implement the logic
 		WorkflowFilterRequest filterReq = (WorkflowFilterRequest) filter;
@@ -69,31 +95,157 @@ public class FlowableService {
 			filterReq = new WorkflowFilterRequest();
 		}
 
-		Specification<WorkflowExecution> spec = WorkflowExecutionSpecification.withFilters(filterReq.getDeviceIds(),
+		Pageable pageable = PageRequest.of(page, size, sortOf(filterReq));
+		Specification<WorkflowExecution> spec = withFilters(filterReq);
+
+		List<Tuple> rows = workflowExecutionRepository.findColumns(spec, selectedColumns(fields, pageable.getSort().toList()),
+				pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+		return PageableExecutionUtils.getPage(toRows(rows, fields), pageable, () -> workflowExecutionRepository.count(spec));
+	}
+
+	/**
+	 * One page of workflow executions in cursor mode: the rows after (for a prevCursor, before) the row the
+	 * cursor was taken from, in the requested sort with flowInstanceId as the last tie-breaker. Each page is
+	 * one index range scan however deep it is, and no COUNT(*) is run unless {@code total} asks for it.
+	 *
+	 * @param fields columns to return, or null/empty for {@link WorkflowExecutionSummary} rows
+	 * @param cursor the nextCursor or prevCursor of a previous page, or null for the first page
+	 * @param total "none", "exact" (COUNT(*) of the filter) or "estimate" (the planner's row count of the table
+	 *        when nothing is filtered, otherwise an exact count)
+	 * @throws IllegalArgumentException if the cursor is malformed or was taken with a different sort
+	 */
+	public WorkflowExecutionSlice getWorkflowExecutionSlice(int size, WorkflowFilterRequest filter, List<String> fields,
+			String cursor, String total) {
+		WorkflowFilterRequest filterReq = filter != null ? filter : new WorkflowFilterRequest();
+		Specification<WorkflowExecution> spec = withFilters(filterReq);
+
+		List<Sort.Order> orders = new ArrayList<>(sortOf(filterReq).toList());
+		if (orders.stream().noneMatch(order -> "flowInstanceId".equals(order.getProperty()))) {
+			orders.add(new Sort.Order(orders.get(orders.size() - 1).getDirection(), "flowInstanceId"));
+		}
+		WorkflowCursor position = decodeWorkflowCursor(cursor, orders.size());
+		boolean backward = position != null && position.backward();
+		// A prev page is read in the opposite order and turned around
+		List<Sort.Order> queryOrders = backward
+				? orders.stream().map(order -> order.with(order.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC)).toList()
+				: orders;
+
+		int pageSize = Math.max(1, Math.min(size, maxPageSize));
+		Specification<WorkflowExecution> pageSpec = position == null ? spec
+				: spec.and(WorkflowExecutionSpecification.after(queryOrders, position.values()));
+		// One extra row tells whether another page follows
+		List<Tuple> rows = new ArrayList<>(workflowExecutionRepository.findColumns(pageSpec, selectedColumns(fields, orders),
+				Sort.by(queryOrders), 0, pageSize + 1));
+		boolean more = rows.size() > pageSize;
+		if (more) {
+			rows.subList(pageSize, rows.size()).clear();
+		}
+		if (backward) {
+			Collections.reverse(rows);
+		}
+
+		boolean hasNext = backward || more;
+		boolean hasPrev = backward ? more : position != null;
+		WorkflowExecutionSlice slice = new WorkflowExecutionSlice();
+		slice.setContent(toRows(rows, fields));
+		slice.setHasNext(hasNext);
+		slice.setHasPrev(hasPrev);
+		if (!rows.isEmpty()) {
+			slice.setNextCursor(hasNext ? encodeWorkflowCursor(false, rows.get(rows.size() - 1), orders) : null);
+			slice.setPrevCursor(hasPrev ? encodeWorkflowCursor(true, rows.get(0), orders) : null);
+		}
+
+		if ("estimate".equals(total) && !filterReq.hasFilters()) {
+			Long estimate = workflowExecutionRepository.estimateCount();
+			if (estimate != null && estimate >= 0) {
+				slice.setTotal(estimate);
+				slice.setTotalEstimated(true);
+			}
+		}
+		if (("exact".equals(total) || "estimate".equals(total)) && slice.getTotal() == null) {
+			slice.setTotal(workflowExecutionRepository.count(spec));
+		}
+		return slice;
+	}
+
+	/**
+	 * The requested fields (or the summary ones) plus the sort columns, which cursors are built from.
+	 */
+	private static Set<String> selectedColumns(List<String> fields, List<Sort.Order> orders) {
+		Set<String> columns = new LinkedHashSet<>(fields == null || fields.isEmpty() ? WorkflowExecutionSummary.FIELDS : fields);
+		orders.forEach(order -> columns.add(order.getProperty()));
+		return columns;
+	}
+
+	private static List<Object> toRows(List<Tuple> rows, List<String> fields) {
+		if (fields == null || fields.isEmpty()) {
+			return rows.stream().<Object>map(WorkflowExecutionSummary::of).toList();
+		}
+		List<Object> result = new ArrayList<>(rows.size());
+		for (Tuple row : rows) {
+			Map<String, Object> values = new LinkedHashMap<>();
+			for (String field : fields) {
+				values.put(field, row.get(field));
+			}
+			result.add(values);
+		}
+		return result;
+	}
+
+	private static Specification<WorkflowExecution> withFilters(WorkflowFilterRequest filterReq) {
+		return WorkflowExecutionSpecification.withFilters(filterReq.getDeviceIds(),
 				filterReq.getWorkflows(), filterReq.getCompleted(), filterReq.getEmailContact(), filterReq.getCreatedAtFrom(),
 				filterReq.getCreatedAtTo(), filterReq.getScheduledTimeFrom(), filterReq.getScheduledTimeTo(),
 				filterReq.getProcessNames(), filterReq.getProcessFlowIds());
+	}
 
-		Sort sortObj = Sort.unsorted();
-		if (filterReq.getSort() != null && !filterReq.getSort().isEmpty()) {
-			List<Sort.Order> orders = new ArrayList<>();
-			for (Map.Entry<String, String> entry : filterReq.getSort().entrySet()) {
-				String dir = entry.getValue().toLowerCase();
-				if ("asc".equals(dir)) {
-					orders.add(Sort.Order.asc(entry.getKey()));
-				} else {
-					orders.add(Sort.Order.desc(entry.getKey()));
-				}
+	private static Sort sortOf(WorkflowFilterRequest filterReq) {
+		if (filterReq.getSort() == null || filterReq.getSort().isEmpty()) {
+			return Sort.by("createdAt").descending();
+		}
+		List<Sort.Order> orders = new ArrayList<>();
+		for (Map.Entry<String, String> entry : filterReq.getSort().entrySet()) {
+			if (!WorkflowExecutionSpecification.SORTABLE.contains(entry.getKey())) {
+				throw new IllegalArgumentException("Cannot sort workflow executions by: " + entry.getKey());
+			}
+			String dir = entry.getValue().toLowerCase();
+			if ("asc".equals(dir)) {
+				orders.add(Sort.Order.asc(entry.getKey()));
+			} else {
+				orders.add(Sort.Order.desc(entry.getKey()));
 			}
-			sortObj = Sort.by(orders);
-		} else {
-			sortObj = Sort.by("createdAt").descending();
 		}
+		return Sort.by(orders);
+	}
 
-		Pageable pageable = PageRequest.of(page, size, sortObj);
+	private String encodeWorkflowCursor(boolean backward, Tuple row, List<Sort.Order> orders) {
+		List<String> values = new ArrayList<>(orders.size());
+		for (Sort.Order order : orders) {
+			Object value = row.get(order.getProperty());
+			values.add(value != null ? value.toString() : null);
+		}
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(new WorkflowCursor(backward, values));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not encode workflow cursor", e);
+		}
+	}
 
-		Page<WorkflowExecution> result = workflowExecutionRepository.findAll(spec, pageable);
-		return result;
+	private WorkflowCursor decodeWorkflowCursor(String cursor, int sortColumns) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		WorkflowCursor decoded;
+		try {
+			decoded = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), WorkflowCursor.class);
+		} catch (IOException | RuntimeException e) {
+			throw new IllegalArgumentException("Invalid workflow cursor: " + cursor);
+		}
+		if (decoded.values() == null || decoded.values().size() != sortColumns) {
+			throw new IllegalArgumentException("Workflow cursor does not match the requested sort");
+		}
+		return decoded;
 	}
 
 	public DiagramResponse getProcessInstanceDiagram(String processInstanceId) {
@@ -216,10 +368,8 @@ public class FlowableService {
 			log.info("Triggering execution {} for reschedule", execution.getId());
 			runtimeService.trigger(execution.getId(), Map.of("newScheduledUpgradeDateTime", newScheduledTime));
 
-			// Update the workflow execution status and reschedule count
-			workflowExecution.setStatus("RESCHEDULED");
-			workflowExecution.setReScheduleCount(currentCount + 1);
-			workflowExecutionRepository.save(workflowExecution);
+			// Update the workflow execution status; ScheduleModifier counts the reschedule when it moves the slot
+			workflowExecutionUpdater.update(processInstanceId, workflow -> workflow.setStatus("RESCHEDULED"));
 
 			response.put("message", "Device upgrade rescheduled successfully");
 			response.put("processInstanceId", processInstanceId);
@@ -242,6 +392,14 @@ public class FlowableService {
 		return logs;
 	}
 
+	public LogPage getLogsPage(String flowId, String step, String status, List<String> fields, Integer size, String cursor) {
+		return elasticsearchService.getLogsPage(flowId, step, status, fields, size, cursor);
+	}
+
+	public void exportLogs(String flowId, String step, String status, List<String> fields, Consumer<LogEntry> consumer) {
+		elasticsearchService.forEachLog(flowId, step, status, fields, consumer);
+	}
+
 	public Task getTaskById(String taskId) {
 		try {
 			Optional<Task> task = taskRepository.findById(taskId);
@@ -259,16 +417,12 @@ public class FlowableService {
 		Map<String, Object> response = new HashMap<>();
 
 		try {
-			Optional<WorkflowExecution> workflowOpt = workflowExecutionRepository.findById(processInstanceId);
-
-			if (!workflowOpt.isPresent()) {
+			if (!workflowExecutionRepository.existsById(processInstanceId)) {
 				response.put("message", "Process instance not found");
 				response.put("status", HttpStatus.NOT_FOUND);
 				return response;
 			}
 
-			WorkflowExecution workflowExecution = workflowOpt.get();
-
 			// Check if the process is already completed
 			HistoricProcessInstance historicProcessInstance = historyService.createHistoricProcessInstanceQuery()
 					.processInstanceId(processInstanceId).singleResult();
@@ -293,8 +447,7 @@ public class FlowableService {
 			runtimeService.suspendProcessInstanceById(processInstanceId);
 
 			// Update the workflow execution status
-			workflowExecution.setStatus("ABORTED");
-			workflowExecutionRepository.save(workflowExecution);
+			workflowExecutionUpdater.update(processInstanceId, workflow -> workflow.setStatus("ABORTED"));
 
 			response.put("message", "Workflow aborted successfully");
 			response.put("processInstanceId", processInstanceId);
@@ -329,6 +482,31 @@ public class FlowableService {
 		private List<String> processNames;
 		private List<String> processFlowIds;
 		private LinkedHashMap<String, String> sort; // Changed to LinkedHashMap
+
+		boolean hasFilters() {
+			return (deviceIds != null && !deviceIds.isEmpty()) || (workflows != null && !workflows.isEmpty())
+					|| completed != null || (emailContact != null && !emailContact.isBlank())
+					|| createdAtFrom != null || createdAtTo != null || scheduledTimeFrom != null || scheduledTimeTo != null
+					|| (processNames != null && !processNames.isEmpty()) || (processFlowIds != null && !processFlowIds.isEmpty());
+		}
+	}
+
+	@Data
+	public static class WorkflowExecutionSlice {
+		// WorkflowExecutionSummary rows, or maps of the requested fields
+		private List<Object> content;
+		// Pass as cursor to get the following or preceding page; null when there is none
+		private String nextCursor;
+		private String prevCursor;
+		private boolean hasNext;
+		private boolean hasPrev;
+		// Only when requested with total=exact or total=estimate
+		private Long total;
+		private boolean totalEstimated;
+	}
+
+	// Direction and the sort values of the row a cursor page continues from
+	record WorkflowCursor(boolean backward, List<String> values) {
 	}
 
 	@Data
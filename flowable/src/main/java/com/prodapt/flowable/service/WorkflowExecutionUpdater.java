@@ -0,0 +1,111 @@
+package com.prodapt.flowable.service;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies changes to a WorkflowExecution under its version.
+ *
+ * Each attempt loads the row, applies the change and flushes it; WorkflowExecution is a dynamic update, so only
+ * the columns the change touched are written. When another writer got there first the attempt is rolled back
+ * and the change is applied again to the fresh row, up to {@code max-attempts} times with a growing, jittered
+ * delay. Inside an existing transaction (the delegates, which run in Flowable's job transaction) the change is
+ * applied once and a conflict fails that transaction, so Flowable retries the job instead.
+ *
+ * Metrics: workflow.execution.update.conflicts and .exhausted.
+ */
+@Service
+@Slf4j
+public class WorkflowExecutionUpdater {
+
+    @Autowired
+    private WorkflowExecutionRepository workflowExecutionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${workflow-execution.update.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${workflow-execution.update.retry-delay-ms:50}")
+    private long retryDelayMs;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter conflicts;
+    private Counter exhausted;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        conflicts = meterRegistry.counter("workflow.execution.update.conflicts");
+        exhausted = meterRegistry.counter("workflow.execution.update.exhausted");
+    }
+
+    /**
+     * Applies the change to the workflow and writes it, retrying on a concurrent modification. The change may
+     * run more than once and must only depend on the workflow it is given.
+     *
+     * @return the updated workflow, or empty when there is none with this id
+     */
+    public Optional<WorkflowExecution> update(String flowInstanceId, Consumer<WorkflowExecution> change) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                return apply(flowInstanceId, change);
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                throw e;
+            }
+        }
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> apply(flowInstanceId, change));
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Workflow {} still modified concurrently after {} attempts, giving up", flowInstanceId, attempt);
+                    throw e;
+                }
+                long delay = retryDelayMs * attempt + ThreadLocalRandom.current().nextLong(retryDelayMs + 1);
+                log.debug("Workflow {} modified concurrently (attempt {} of {}), retrying in {} ms", flowInstanceId,
+                        attempt, maxAttempts, delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while updating workflow " + flowInstanceId, interrupted);
+                }
+            }
+        }
+    }
+
+    private Optional<WorkflowExecution> apply(String flowInstanceId, Consumer<WorkflowExecution> change) {
+        Optional<WorkflowExecution> workflow = workflowExecutionRepository.findById(flowInstanceId);
+        workflow.ifPresent(workflowExec -> {
+            change.accept(workflowExec);
+            // Flush so that a conflict shows up in this attempt rather than at the caller's commit
+            workflowExecutionRepository.saveAndFlush(workflowExec);
+        });
+        return workflow;
+    }
+}
@@ -0,0 +1,85 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.config.JobExecutorProperties;
+import com.prodapt.flowable.config.JobExecutorProperties.Lane;
+
+/**
+ * The executor lanes from {@link JobExecutorProperties} and the job categories they are stored in.
+ *
+ * A job's category is {@code <lane>.<band>} (e.g. {@code nfx.critical}); a category without a lane, as set
+ * with {@code flowable:jobCategory} in the BPMN, is a bare {@link JobPriority} band.
+ */
+@Component
+public class JobLanes {
+
+    private final String defaultLane;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final Map<String, String> laneByStep = new HashMap<>();
+
+    public JobLanes(JobExecutorProperties properties) {
+        this.defaultLane = properties.getDefaultLane();
+        properties.getLanes().forEach((name, lane) -> {
+            if (!name.matches("[a-z0-9-]+")) {
+                throw new IllegalArgumentException("Invalid job-executor lane name '" + name + "'");
+            }
+            lanes.put(name, lane);
+            lane.getSteps().forEach(step -> {
+                String previous = laneByStep.put(step, name);
+                if (previous != null) {
+                    throw new IllegalArgumentException("Step " + step + " is in job-executor lanes " + previous + " and " + name);
+                }
+            });
+        });
+        lanes.putIfAbsent(defaultLane, new Lane());
+    }
+
+    public Map<String, Lane> lanes() {
+        return lanes;
+    }
+
+    public String defaultLane() {
+        return defaultLane;
+    }
+
+    /**
+     * The lanes that list their steps, i.e. all but the default one.
+     */
+    public List<String> dedicatedLanes() {
+        List<String> names = new ArrayList<>(lanes.keySet());
+        names.remove(defaultLane);
+        return names;
+    }
+
+    public String laneOfStep(String step) {
+        return step != null ? laneByStep.getOrDefault(step, defaultLane) : defaultLane;
+    }
+
+    /**
+     * The lane a job of this category runs in; unknown and bare-band categories run in the default lane.
+     */
+    public String laneOf(String category) {
+        if (category != null) {
+            int dot = category.indexOf('.');
+            if (dot > 0 && lanes.containsKey(category.substring(0, dot))) {
+                return category.substring(0, dot);
+            }
+        }
+        return defaultLane;
+    }
+
+    public static boolean hasLane(String category) {
+        return category != null && category.indexOf('.') > 0;
+    }
+
+    public static String category(String lane, JobPriority priority) {
+        return lane + "." + priority.category();
+    }
+}
@@ -0,0 +1,35 @@
+package com.prodapt.flowable.service.jobs;
+
+/**
+ * Priority band of a Flowable job, stored in the job's category. Jobs of a higher band are acquired and
+ * run before jobs of a lower one; within a band they run in arrival order.
+ */
+public enum JobPriority {
+
+    /** Work in or right before the device's maintenance window. */
+    CRITICAL,
+    /** Regular upgrade steps. */
+    NORMAL,
+    /** Housekeeping (reminder emails, rescheduling) and work for far-future upgrades. */
+    BACKGROUND;
+
+    public String category() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * The band stored in a job category, with or without its lane (see {@link JobLanes}); jobs without a known
+     * band are {@link #NORMAL}.
+     */
+    public static JobPriority ofCategory(String category) {
+        if (category != null) {
+            String band = category.substring(category.indexOf('.') + 1);
+            for (JobPriority priority : values()) {
+                if (priority.category().equals(band)) {
+                    return priority;
+                }
+            }
+        }
+        return NORMAL;
+    }
+}
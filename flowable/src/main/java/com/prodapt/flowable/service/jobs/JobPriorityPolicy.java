@@ -0,0 +1,136 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.job.service.JobProcessor;
+import org.flowable.job.service.JobProcessorContext;
+import org.flowable.job.service.impl.persistence.entity.AbstractRuntimeJobEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Assigns every job (async continuations, NFX triggers, timers) its executor lane ({@link JobLanes}) and a
+ * {@link JobPriority} band when it is created. The band follows from the process's
+ * {@code scheduledUpgradeDateTime} and the step the job runs:
+ * <ul>
+ * <li>housekeeping steps ({@code job-priority.housekeeping-steps}) are always BACKGROUND;</li>
+ * <li>steps of an upgrade whose window opens within {@code job-priority.critical-within}, or is already
+ * open, are CRITICAL;</li>
+ * <li>steps of an upgrade more than {@code job-priority.background-beyond} away are BACKGROUND;</li>
+ * <li>everything else is NORMAL.</li>
+ * </ul>
+ * Timer jobs are banded as of their due date. A band set with {@code flowable:jobCategory} on a timer is
+ * kept, and a job that already has a lane (e.g. copied from its timer) is left as is.
+ */
+@Component
+@Slf4j
+public class JobPriorityPolicy implements JobProcessor {
+
+    static final String SCHEDULED_TIME_VARIABLE = "scheduledUpgradeDateTime";
+
+    private final JobLanes jobLanes;
+
+    @Value("${job-priority.enabled:true}")
+    private boolean enabled;
+
+    @Value("${job-priority.critical-within:2h}")
+    private Duration criticalWithin;
+
+    @Value("${job-priority.background-beyond:4d}")
+    private Duration backgroundBeyond;
+
+    @Value("${job-priority.housekeeping-steps:ReminderEmail,ScheduleModifier}")
+    private Set<String> housekeepingSteps;
+
+    public JobPriorityPolicy(JobLanes jobLanes) {
+        this.jobLanes = jobLanes;
+    }
+
+    @Override
+    public void process(JobProcessorContext context) {
+        if (!context.isInPhase(JobProcessorContext.Phase.BEFORE_CREATE)
+                || !(context.getJobEntity() instanceof AbstractRuntimeJobEntity job)
+                || JobLanes.hasLane(job.getCategory()) || job.getExecutionId() == null) {
+            return;
+        }
+        ExecutionEntity execution = CommandContextUtil.getExecutionEntityManager().findById(job.getExecutionId());
+        if (execution == null) {
+            return;
+        }
+        String step = step(execution.getCurrentFlowElement());
+        JobPriority priority;
+        if (job.getCategory() != null) {
+            priority = JobPriority.ofCategory(job.getCategory());
+        } else if (enabled) {
+            // A timer job runs at its due date (or right away when that has passed), so its band is as of then
+            Instant now = Instant.now();
+            Instant runsAt = job.getDuedate() != null && job.getDuedate().toInstant().isAfter(now) ? job.getDuedate().toInstant() : now;
+            priority = priorityOf(step, scheduledTime(execution.getVariable(SCHEDULED_TIME_VARIABLE)), runsAt);
+        } else {
+            priority = JobPriority.NORMAL;
+        }
+        job.setCategory(JobLanes.category(jobLanes.laneOfStep(step), priority));
+        log.debug("Job for {} of process {} queued as {}", job.getElementId(), job.getProcessInstanceId(), job.getCategory());
+    }
+
+    /**
+     * The band of a job running at {@code runsAt} for {@code step} of an upgrade scheduled at
+     * {@code scheduledTime} (may be null).
+     */
+    public JobPriority priorityOf(String step, Instant scheduledTime, Instant runsAt) {
+        if (step != null && housekeepingSteps.contains(step)) {
+            return JobPriority.BACKGROUND;
+        }
+        if (scheduledTime == null) {
+            return JobPriority.NORMAL;
+        }
+        Duration untilWindow = Duration.between(runsAt, scheduledTime);
+        if (untilWindow.compareTo(criticalWithin) <= 0) {
+            return JobPriority.CRITICAL;
+        }
+        return untilWindow.compareTo(backgroundBeyond) > 0 ? JobPriority.BACKGROUND : JobPriority.NORMAL;
+    }
+
+    /**
+     * The delegate bean of a service task ({@code ${RebootDevice}} is step RebootDevice), else the element id.
+     */
+    private static String step(FlowElement element) {
+        if (element == null) {
+            return null;
+        }
+        if (element instanceof ServiceTask serviceTask && serviceTask.getImplementation() != null) {
+            String implementation = serviceTask.getImplementation();
+            if (implementation.startsWith("${") && implementation.endsWith("}")) {
+                return implementation.substring(2, implementation.length() - 1);
+            }
+            return implementation;
+        }
+        return element.getId();
+    }
+
+    private static Instant scheduledTime(Object value) {
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof ZonedDateTime zonedDateTime) {
+            return zonedDateTime.toInstant();
+        }
+        if (value instanceof String text) {
+            try {
+                return ZonedDateTime.parse(text).toInstant();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,313 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.flowable.common.engine.api.async.AsyncTaskExecutor;
+import org.flowable.job.api.Job;
+import org.flowable.job.api.JobInfo;
+import org.flowable.job.service.JobServiceConfiguration;
+import org.flowable.job.service.impl.asyncexecutor.ExecuteAsyncRunnable;
+import org.flowable.job.service.impl.asyncexecutor.ExecuteAsyncRunnableFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.config.JobExecutorProperties;
+import com.prodapt.flowable.config.JobExecutorProperties.Lane;
+import com.prodapt.flowable.config.JobExecutorProperties.VirtualThreads;
+import com.prodapt.flowable.config.NfxClientProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread pools of the Flowable async executor, one per lane ({@link JobLanes}). Within a lane, queued jobs
+ * run by {@link JobPriority} band, then in arrival order, instead of first-in first-out.
+ *
+ * Flowable hands every acquired job to {@link #execute}; a job takes one of the lane's queue-capacity slots
+ * until a thread picks it up, and when none is free it is rejected, and Flowable releases it to be acquired again later (by lane capacity and band, see
+ * {@link PriorityJobDataManager}).
+ *
+ * With {@code job-executor.virtual-threads.enabled} each job runs on its own virtual thread, at most pool-size
+ * per lane and {@code max-concurrency} over all lanes at once. A job holds its database connection until it
+ * commits, so max-concurrency defaults to the database pool size less two (for acquisition and the web
+ * requests), and to no more than the NFX bulkhead admits per endpoint. Pinned virtual threads are reported
+ * by {@link VirtualThreadPinningMonitor}.
+ *
+ * Metrics: flowable.job.queue.wait (time from queueing to start), flowable.job.queued and
+ * flowable.timer.lateness (time from a timer's due date to the start of its job), tagged with the lane and
+ * band; flowable.job.active and flowable.job.rejected, tagged with the lane.
+ */
+@Component
+@Slf4j
+public class PrioritizedJobExecutor implements AsyncTaskExecutor, ExecuteAsyncRunnableFactory {
+
+    private final JobLanes jobLanes;
+    private final Map<String, LaneExecutor> lanes = new LinkedHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Virtual thread mode only: jobs running at once over all lanes
+    private final Semaphore virtualThreadPermits;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    public PrioritizedJobExecutor(JobLanes jobLanes, JobExecutorProperties properties, NfxClientProperties nfxClientProperties,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int dbPoolSize, MeterRegistry meterRegistry) {
+        this.jobLanes = jobLanes;
+        VirtualThreads virtualThreads = properties.getVirtualThreads();
+        if (virtualThreads.isEnabled()) {
+            int maxConcurrency = virtualThreads.getMaxConcurrency() > 0 ? virtualThreads.getMaxConcurrency()
+                    : Math.max(1, Math.min(dbPoolSize - 2, nfxClientProperties.getBulkhead().getMaxConcurrentCalls()));
+            this.virtualThreadPermits = new Semaphore(maxConcurrency);
+            this.pinningMonitor = new VirtualThreadPinningMonitor(virtualThreads.getPinnedThreshold(), meterRegistry);
+            this.pinningMonitor.start();
+            log.info("Flowable jobs run on virtual threads, at most {} at once", maxConcurrency);
+        } else {
+            this.virtualThreadPermits = null;
+            this.pinningMonitor = null;
+        }
+        jobLanes.lanes().forEach((name, lane) -> lanes.put(name, new LaneExecutor(name, lane, meterRegistry)));
+    }
+
+    @Override
+    public Runnable createExecuteAsyncRunnable(JobInfo job, JobServiceConfiguration jobServiceConfiguration) {
+        String category = job instanceof Job runtimeJob ? runtimeJob.getCategory() : null;
+        QueuedJob queuedJob = new QueuedJob(jobLanes.laneOf(category), JobPriority.ofCategory(category),
+                new ExecuteAsyncRunnable(job, jobServiceConfiguration, jobServiceConfiguration.getJobEntityManager(), null));
+        if (job instanceof Job runtimeJob && Job.JOB_TYPE_TIMER.equals(runtimeJob.getJobType()) && runtimeJob.getDuedate() != null) {
+            queuedJob.dueAt = runtimeJob.getDuedate().getTime();
+        }
+        return queuedJob;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        QueuedJob job = runnable instanceof QueuedJob queuedJob ? queuedJob
+                : new QueuedJob(jobLanes.defaultLane(), JobPriority.NORMAL, runnable);
+        lanes.get(job.lane).execute(job);
+    }
+
+    @Override
+    public CompletableFuture<?> submit(Runnable task) {
+        return CompletableFuture.runAsync(task, this::execute);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, this::execute);
+    }
+
+    @Override
+    public int getRemainingCapacity() {
+        return lanes.values().stream().mapToInt(LaneExecutor::remainingCapacity).sum();
+    }
+
+    /**
+     * Jobs the lane can still queue.
+     */
+    public int getRemainingCapacity(String lane) {
+        return lanes.get(lane).remainingCapacity();
+    }
+
+    @Override
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(LaneExecutor::shutdown);
+        lanes.values().forEach(LaneExecutor::awaitTermination);
+        if (pinningMonitor != null) {
+            pinningMonitor.close();
+        }
+    }
+
+    private final class LaneExecutor {
+
+        private final String name;
+        private final int poolSize;
+        private final int queueCapacity;
+        private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+        // Queued jobs, claimed before a job is queued and released when a thread takes it, so concurrent
+        // acquisitions cannot overfill the unbounded queue
+        private final Semaphore queueSlots;
+        // Platform thread mode: the pool takes jobs from the queue
+        private final ThreadPoolExecutor pool;
+        // Virtual thread mode: the dispatcher takes a job from the queue whenever the lane may start one
+        private final Semaphore lanePermits;
+        private final Thread dispatcher;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Map<JobPriority, Timer> queueWait = new EnumMap<>(JobPriority.class);
+        private final Map<JobPriority, AtomicInteger> queued = new EnumMap<>(JobPriority.class);
+        private final Map<JobPriority, Timer> timerLateness = new EnumMap<>(JobPriority.class);
+        private final Counter rejected;
+
+        LaneExecutor(String name, Lane lane, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.poolSize = lane.getPoolSize();
+            this.queueCapacity = lane.getQueueCapacity();
+            this.queueSlots = new Semaphore(queueCapacity);
+            if (virtualThreadPermits == null) {
+                AtomicInteger threads = new AtomicInteger();
+                this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue,
+                        runnable -> new Thread(runnable, "flowable-" + name + "-" + threads.incrementAndGet()));
+                // Every job goes through the queue, so it is always ordered by band
+                this.pool.prestartAllCoreThreads();
+                this.lanePermits = null;
+                this.dispatcher = null;
+            } else {
+                this.pool = null;
+                this.lanePermits = new Semaphore(poolSize);
+                this.dispatcher = Thread.ofVirtual().name("flowable-" + name + "-dispatcher").start(this::dispatch);
+            }
+            for (JobPriority priority : JobPriority.values()) {
+                queueWait.put(priority, Timer.builder("flowable.job.queue.wait")
+                        .tag("lane", name).tag("band", priority.category()).register(meterRegistry));
+                AtomicInteger count = new AtomicInteger();
+                queued.put(priority, count);
+                Gauge.builder("flowable.job.queued", count, AtomicInteger::get)
+                        .tag("lane", name).tag("band", priority.category()).register(meterRegistry);
+                timerLateness.put(priority, Timer.builder("flowable.timer.lateness")
+                        .tag("lane", name).tag("band", priority.category()).register(meterRegistry));
+            }
+            Gauge.builder("flowable.job.active", active, AtomicInteger::get).tag("lane", name).register(meterRegistry);
+            this.rejected = meterRegistry.counter("flowable.job.rejected", "lane", name);
+        }
+
+        void execute(QueuedJob job) {
+            if (!queueSlots.tryAcquire()) {
+                rejected.increment();
+                throw new RejectedExecutionException("Flowable job queue of lane " + name + " is full (" + queueCapacity + " jobs)");
+            }
+            job.sequence = sequence.incrementAndGet();
+            job.queuedAt = System.nanoTime();
+            job.owner = this;
+            queued.get(job.priority).incrementAndGet();
+            try {
+                if (pool != null) {
+                    pool.execute(job);
+                } else {
+                    queue.add(job);
+                }
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                queued.get(job.priority).decrementAndGet();
+                queueSlots.release();
+                throw e;
+            }
+        }
+
+        private void dispatch() {
+            AtomicInteger threads = new AtomicInteger();
+            try {
+                while (true) {
+                    lanePermits.acquire();
+                    Runnable job;
+                    try {
+                        job = queue.take();
+                        virtualThreadPermits.acquire();
+                    } catch (InterruptedException e) {
+                        lanePermits.release();
+                        throw e;
+                    }
+                    Thread.ofVirtual().name("flowable-" + name + "-vt-" + threads.incrementAndGet()).start(() -> {
+                        try {
+                            job.run();
+                        } finally {
+                            virtualThreadPermits.release();
+                            lanePermits.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                log.debug("Dispatcher of Flowable job lane {} stopped", name);
+            }
+        }
+
+        int remainingCapacity() {
+            return queueSlots.availablePermits();
+        }
+
+        void shutdown() {
+            if (pool != null) {
+                pool.shutdown();
+            } else {
+                dispatcher.interrupt();
+            }
+        }
+
+        void awaitTermination() {
+            try {
+                boolean terminated = pool != null ? pool.awaitTermination(30, TimeUnit.SECONDS)
+                        // All permits back means no job of the lane is running any more
+                        : lanePermits.tryAcquire(poolSize, 30, TimeUnit.SECONDS);
+                if (!terminated) {
+                    log.warn("Flowable jobs of lane {} still running after 30s, interrupting them", name);
+                    if (pool != null) {
+                        pool.shutdownNow();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
+            }
+        }
+    }
+
+    private static final class QueuedJob implements Runnable, Comparable<QueuedJob> {
+
+        private final String lane;
+        private final JobPriority priority;
+        private final Runnable delegate;
+        private LaneExecutor owner;
+        private long sequence;
+        private long queuedAt;
+        // Due date of a timer job, in epoch millis
+        private long dueAt = -1;
+
+        QueuedJob(String lane, JobPriority priority, Runnable delegate) {
+            this.lane = lane;
+            this.priority = priority;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            owner.queueSlots.release();
+            owner.queued.get(priority).decrementAndGet();
+            owner.queueWait.get(priority).record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            if (dueAt >= 0) {
+                owner.timerLateness.get(priority).record(Math.max(0, System.currentTimeMillis() - dueAt), TimeUnit.MILLISECONDS);
+            }
+            owner.active.incrementAndGet();
+            try {
+                delegate.run();
+            } finally {
+                owner.active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
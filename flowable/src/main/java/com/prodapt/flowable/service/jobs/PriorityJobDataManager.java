@@ -0,0 +1,91 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.flowable.common.engine.impl.Page;
+import org.flowable.common.engine.impl.db.ListQueryParameterObject;
+import org.flowable.job.service.JobServiceConfiguration;
+import org.flowable.job.service.impl.persistence.entity.JobEntity;
+import org.flowable.job.service.impl.persistence.entity.data.impl.MybatisJobDataManager;
+
+/**
+ * Acquires executable jobs lane by lane ({@link JobLanes}), each up to the room left in its queue and its
+ * max-jobs-per-acquisition, and within a lane by {@link JobPriority} band, then oldest first, where Flowable
+ * acquires them by id. A lane with a full queue so leaves its jobs in the database instead of taking the
+ * acquisition from the other lanes. Matters when jobs wait in the database, e.g. after a queue was full or
+ * on another node.
+ */
+public class PriorityJobDataManager extends MybatisJobDataManager {
+
+    private static final String BAND_ORDER = "case when RES.CATEGORY_ like '%" + JobPriority.CRITICAL.category() + "' then 0"
+            + " when RES.CATEGORY_ like '%" + JobPriority.BACKGROUND.category() + "' then 2 else 1 end";
+
+    private final JobLanes jobLanes;
+    private final PrioritizedJobExecutor jobExecutor;
+    // Sorts the jobs of the default lane (any category not starting with a dedicated lane) first
+    private final String otherLanesLast;
+
+    public PriorityJobDataManager(JobServiceConfiguration jobServiceConfiguration, JobLanes jobLanes,
+            PrioritizedJobExecutor jobExecutor) {
+        super(jobServiceConfiguration);
+        this.jobLanes = jobLanes;
+        this.jobExecutor = jobExecutor;
+        List<String> dedicatedLanes = jobLanes.dedicatedLanes();
+        this.otherLanesLast = dedicatedLanes.isEmpty() ? null : dedicatedLanes.stream()
+                .map(lane -> "RES.CATEGORY_ like '" + lane + ".%'")
+                .collect(Collectors.joining(" or ", "case when ", " then 1 else 0 end"));
+    }
+
+    @Override
+    public List<JobEntity> findJobsToExecute(List<String> enabledCategories, Page page) {
+        List<JobEntity> jobs = new ArrayList<>();
+        for (String lane : jobLanes.lanes().keySet()) {
+            int limit = Math.min(page.getMaxResults() - jobs.size(),
+                    Math.min(jobExecutor.getRemainingCapacity(lane), jobLanes.lanes().get(lane).getMaxJobsPerAcquisition()));
+            if (limit <= 0) {
+                continue;
+            }
+            if (lane.equals(jobLanes.defaultLane())) {
+                jobs.addAll(findDefaultLaneJobs(enabledCategories, limit));
+            } else {
+                List<String> categories = new ArrayList<>();
+                for (JobPriority priority : JobPriority.values()) {
+                    String category = JobLanes.category(lane, priority);
+                    if (enabledCategories == null || enabledCategories.isEmpty() || enabledCategories.contains(category)) {
+                        categories.add(category);
+                    }
+                }
+                if (!categories.isEmpty()) {
+                    jobs.addAll(selectJobsToExecute(categories, null, limit));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private List<JobEntity> findDefaultLaneJobs(List<String> enabledCategories, int limit) {
+        List<JobEntity> jobs = selectJobsToExecute(enabledCategories, otherLanesLast, limit);
+        // Jobs of the other lanes only come after the last one of the default lane
+        return jobs.stream().filter(job -> jobLanes.laneOf(job.getCategory()).equals(jobLanes.defaultLane())).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<JobEntity> selectJobsToExecute(List<String> categories, String firstOrder, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("jobExecutionScope", jobServiceConfiguration.getJobExecutionScope());
+        if (categories != null && !categories.isEmpty()) {
+            params.put("enabledCategories", categories);
+        }
+        ListQueryParameterObject query = new ListQueryParameterObject(params, 0, limit);
+        if (firstOrder != null) {
+            query.addOrder(firstOrder, ListQueryParameterObject.SORTORDER_ASC, null);
+        }
+        query.addOrder(BAND_ORDER, ListQueryParameterObject.SORTORDER_ASC, null);
+        query.addOrder("RES.CREATE_TIME_", ListQueryParameterObject.SORTORDER_ASC, null);
+        return getDbSqlSession().selectList("selectJobsToExecute", query);
+    }
+}
@@ -0,0 +1,67 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flowable.common.engine.impl.Page;
+import org.flowable.common.engine.impl.db.ListQueryParameterObject;
+import org.flowable.job.service.JobServiceConfiguration;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntity;
+import org.flowable.job.service.impl.persistence.entity.data.impl.MybatisTimerJobDataManager;
+
+/**
+ * Releases due timers, earliest due first, at no more than {@code timer-release.max-per-second}: when the
+ * Scheduled Time timers of a few hundred devices in the same slot come due, they turn into executable jobs
+ * over a few seconds instead of all in one acquisition. Timers that are not critical are already spread by
+ * {@link TimerSpreadingPolicy}, so the limit mostly paces those.
+ *
+ * The budget refills continuously up to one second's worth; a rate of 0 releases without limit.
+ */
+public class RateLimitedTimerJobDataManager extends MybatisTimerJobDataManager {
+
+    private final int maxPerSecond;
+    private double budget;
+    private long refilledAt = System.nanoTime();
+
+    public RateLimitedTimerJobDataManager(JobServiceConfiguration jobServiceConfiguration, int maxPerSecond) {
+        super(jobServiceConfiguration);
+        this.maxPerSecond = maxPerSecond;
+        this.budget = maxPerSecond;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TimerJobEntity> findJobsToExecute(List<String> enabledCategories, Page page) {
+        int limit = maxPerSecond > 0 ? Math.min(page.getMaxResults(), takeBudget()) : page.getMaxResults();
+        if (limit <= 0) {
+            return List.of();
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("jobExecutionScope", jobServiceConfiguration.getJobExecutionScope());
+        params.put("now", jobServiceConfiguration.getClock().getCurrentTime());
+        if (enabledCategories != null && !enabledCategories.isEmpty()) {
+            params.put("enabledCategories", enabledCategories);
+        }
+        ListQueryParameterObject query = new ListQueryParameterObject(params, 0, limit);
+        query.addOrder("RES.DUEDATE_", ListQueryParameterObject.SORTORDER_ASC, null);
+        List<TimerJobEntity> timers = getDbSqlSession().selectList("selectTimerJobsToExecute", query);
+        if (maxPerSecond > 0) {
+            returnBudget(limit - timers.size());
+        }
+        return timers;
+    }
+
+    private synchronized int takeBudget() {
+        long now = System.nanoTime();
+        budget = Math.min(maxPerSecond, budget + (now - refilledAt) / 1e9 * maxPerSecond);
+        refilledAt = now;
+        int taken = (int) budget;
+        budget -= taken;
+        return taken;
+    }
+
+    private synchronized void returnBudget(int unused) {
+        budget = Math.min(maxPerSecond, budget + unused);
+    }
+}
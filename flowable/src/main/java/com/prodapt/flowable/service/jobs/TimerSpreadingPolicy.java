@@ -0,0 +1,77 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.job.service.JobProcessor;
+import org.flowable.job.service.JobProcessorContext;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads the timers of devices scheduled into the same slot (reminders, the pre-upgrade timer, the weekly
+ * wait) over {@code timer-spreading.window}, so hundreds of them do not fire in the same second. Runs after
+ * {@link JobPriorityPolicy} and leaves CRITICAL timers alone: those are released at a limited rate instead,
+ * see {@link RateLimitedTimerJobDataManager}.
+ * <ul>
+ * <li>{@code stagger}: the timer is moved later by an offset derived from the device id, so a device's
+ * timers keep their order and the same offset across restarts;</li>
+ * <li>{@code jitter}: by a random offset;</li>
+ * <li>{@code off}: timers are left as modelled.</li>
+ * </ul>
+ * Metric: flowable.timer.stagger (the offsets applied).
+ */
+@Component
+@Slf4j
+public class TimerSpreadingPolicy implements JobProcessor {
+
+    static final String DEVICE_ID_VARIABLE = "deviceId";
+
+    private final Timer stagger;
+
+    @Value("${timer-spreading.mode:stagger}")
+    private String mode;
+
+    @Value("${timer-spreading.window:15m}")
+    private Duration window;
+
+    public TimerSpreadingPolicy(MeterRegistry meterRegistry) {
+        this.stagger = Timer.builder("flowable.timer.stagger").register(meterRegistry);
+    }
+
+    @Override
+    public void process(JobProcessorContext context) {
+        if ("off".equals(mode) || window.isZero() || !context.isInPhase(JobProcessorContext.Phase.BEFORE_CREATE)
+                || !(context.getJobEntity() instanceof TimerJobEntity timer) || timer.getDuedate() == null
+                || JobPriority.ofCategory(timer.getCategory()) == JobPriority.CRITICAL) {
+            return;
+        }
+        long offsetMillis = "jitter".equals(mode)
+                ? ThreadLocalRandom.current().nextLong(window.toMillis())
+                : Math.floorMod(spreadKey(timer).hashCode() * 0x9E3779B1L, window.toMillis());
+        timer.setDuedate(new Date(timer.getDuedate().getTime() + offsetMillis));
+        stagger.record(offsetMillis, TimeUnit.MILLISECONDS);
+        log.debug("Timer {} of process {} moved by {}ms to {}", timer.getElementId(), timer.getProcessInstanceId(),
+                offsetMillis, timer.getDuedate().toInstant());
+    }
+
+    private static String spreadKey(TimerJobEntity timer) {
+        if (timer.getExecutionId() != null) {
+            ExecutionEntity execution = CommandContextUtil.getExecutionEntityManager().findById(timer.getExecutionId());
+            Object deviceId = execution != null ? execution.getVariable(DEVICE_ID_VARIABLE) : null;
+            if (deviceId != null) {
+                return deviceId.toString();
+            }
+        }
+        return String.valueOf(timer.getProcessInstanceId());
+    }
+}
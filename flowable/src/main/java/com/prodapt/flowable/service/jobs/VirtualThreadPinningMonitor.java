@@ -0,0 +1,71 @@
+package com.prodapt.flowable.service.jobs;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread (in a synchronized block or a
+ * native frame), which takes the carrier away from all other virtual threads. Listens to the JDK's
+ * jdk.VirtualThreadPinned flight recorder event in process, so it needs no JVM flags.
+ *
+ * The first pin at a given code location is logged as a warning with its stack, later ones at debug.
+ * Metrics: flowable.job.virtual.pinned (count and duration).
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final int LOGGED_FRAMES = 25;
+    private static final int MAX_LOCATIONS = 1000;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Set<String> seenLocations = ConcurrentHashMap.newKeySet();
+    private final Duration threshold;
+    private final Timer pinned;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("flowable.job.virtual.pinned").register(meterRegistry);
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+    }
+
+    public void start() {
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {}", threshold);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        List<String> frames = event.getStackTrace() == null ? List.of()
+                : event.getStackTrace().getFrames().stream().map(VirtualThreadPinningMonitor::frame).toList();
+        // The top frames are the JDK parking the thread; the first other frame is where it was pinned
+        String location = frames.stream().filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.")
+                && !frame.startsWith("sun.")).findFirst().orElse(frames.isEmpty() ? "(no stack)" : frames.get(0));
+        if (seenLocations.size() < MAX_LOCATIONS && seenLocations.add(location)) {
+            log.warn("Virtual thread {} pinned for {}ms at {}\n\tat {}",
+                    event.getThread() != null ? event.getThread().getJavaName() : "?", event.getDuration().toMillis(),
+                    location, String.join("\n\tat ", frames.subList(0, Math.min(LOGGED_FRAMES, frames.size()))));
+        } else {
+            log.debug("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), location);
+        }
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -0,0 +1,293 @@
+package com.prodapt.flowable.service.logging;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.entity.LogEntry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Indexes log entries into Elasticsearch off the caller's thread.
+ *
+ * Delegates hand entries to {@link #enqueue}, which only claims a slot in a lock-free ring buffer. A single
+ * flusher thread drains the buffer and sends a {@code _bulk} request when {@code batch-size} entries are
+ * waiting or the oldest waiting entry is {@code flush-interval-ms} old. While Elasticsearch is slow or
+ * failing the flusher retries with backoff and the buffer absorbs the burst; once it is full new entries
+ * are dropped and counted rather than blocking the caller.
+ *
+ * When a batch still fails after {@code max-retries} it is written to a local {@link LogSpool} instead of
+ * being dropped. While the spool holds entries, new batches are appended behind them so every flow's events
+ * reach Elasticsearch in order, and the flusher replays the spool in bulk every {@code spool.retry-interval-ms}
+ * until Elasticsearch accepts it again. Only the flusher thread touches the spool.
+ *
+ * Metrics: es.log.indexer.enqueued, .dropped, .indexed, .failed, .queue.size, .bulk (timer), .spooled,
+ * .replayed, .spool.bytes, .spool.segments and .spool.segments.dropped.
+ */
+@Component
+@Slf4j
+public class ElasticsearchLogIndexer {
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${elasticsearch.log-indexer.enabled:false}")
+    private boolean enabled;
+
+    @Value("${elasticsearch.log-indexer.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${elasticsearch.log-indexer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${elasticsearch.log-indexer.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${elasticsearch.log-indexer.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${elasticsearch.log-indexer.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${elasticsearch.log-indexer.spool.directory:log-spool}")
+    private String spoolDirectory;
+
+    @Value("${elasticsearch.log-indexer.spool.segment-size-mb:16}")
+    private int spoolSegmentSizeMb;
+
+    @Value("${elasticsearch.log-indexer.spool.max-segments:64}")
+    private int spoolMaxSegments;
+
+    @Value("${elasticsearch.log-indexer.spool.retry-interval-ms:5000}")
+    private long spoolRetryIntervalMs;
+
+    private LogEventRingBuffer<LogEntry> buffer;
+    private LogSpool spool;
+    private Thread flusher;
+    private volatile boolean running;
+    private long nextReplayAt;
+    private boolean indexReady;
+
+    private Counter enqueued;
+    private Counter dropped;
+    private Counter indexed;
+    private Counter failed;
+    private Counter spooled;
+    private Counter replayed;
+    private Timer bulkTimer;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("Elasticsearch log indexing is disabled");
+            return;
+        }
+        buffer = new LogEventRingBuffer<>(bufferSize);
+        enqueued = meterRegistry.counter("es.log.indexer.enqueued");
+        dropped = meterRegistry.counter("es.log.indexer.dropped");
+        indexed = meterRegistry.counter("es.log.indexer.indexed");
+        failed = meterRegistry.counter("es.log.indexer.failed");
+        bulkTimer = meterRegistry.timer("es.log.indexer.bulk");
+        Gauge.builder("es.log.indexer.queue.size", buffer, LogEventRingBuffer::size).register(meterRegistry);
+        if (spoolEnabled) {
+            openSpool();
+        }
+
+        running = true;
+        flusher = Thread.ofPlatform().name("es-log-flusher").daemon(true).start(this::runFlusher);
+        log.info("Elasticsearch log indexing started: buffer {}, batch size {}, flush interval {} ms, spool {}",
+                buffer.capacity(), batchSize, flushIntervalMs, spool != null ? spoolDirectory : "disabled");
+    }
+
+    private void openSpool() {
+        try {
+            spool = new LogSpool(Path.of(spoolDirectory), spoolSegmentSizeMb * 1024L * 1024L, spoolMaxSegments);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not open log spool in {}, failed batches will be dropped", spoolDirectory, e);
+            return;
+        }
+        spooled = meterRegistry.counter("es.log.indexer.spooled");
+        replayed = meterRegistry.counter("es.log.indexer.replayed");
+        Gauge.builder("es.log.indexer.spool.bytes", spool, LogSpool::sizeBytes).register(meterRegistry);
+        Gauge.builder("es.log.indexer.spool.segments", spool, LogSpool::segmentCount).register(meterRegistry);
+        FunctionCounter.builder("es.log.indexer.spool.segments.dropped", spool, LogSpool::droppedSegments).register(meterRegistry);
+    }
+
+    /**
+     * Queues an entry for indexing without blocking.
+     *
+     * @return {@code false} if indexing is disabled or the entry was dropped because the buffer is full
+     */
+    public boolean enqueue(LogEntry logEntry) {
+        if (!running) {
+            return false;
+        }
+        if (!buffer.offer(logEntry)) {
+            dropped.increment();
+            return false;
+        }
+        enqueued.increment();
+        // Wake the flusher early once a full batch is waiting
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    private void runFlusher() {
+        List<LogEntry> pending = new ArrayList<>(batchSize);
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long oldestPendingAt = 0;
+
+        while (running || buffer.size() > 0 || !pending.isEmpty()) {
+            int before = pending.size();
+            buffer.drainTo(pending, batchSize - before);
+            if (before == 0 && !pending.isEmpty()) {
+                oldestPendingAt = System.nanoTime();
+            }
+
+            long waited = System.nanoTime() - oldestPendingAt;
+            if (pending.size() >= batchSize || (!pending.isEmpty() && (waited >= intervalNanos || !running))) {
+                flush(pending);
+                pending.clear();
+            } else if (running) {
+                long parkNanos = pending.isEmpty() ? intervalNanos : intervalNanos - waited;
+                if (spool != null && !spool.isEmpty()) {
+                    long untilReplay = nextReplayAt - System.nanoTime();
+                    if (untilReplay <= 0) {
+                        replaySpool();
+                        continue;
+                    }
+                    parkNanos = Math.min(parkNanos, untilReplay);
+                }
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+    }
+
+    private void flush(List<LogEntry> batch) {
+        // Entries already waiting in the spool must be indexed first
+        if (spool != null && !spool.isEmpty()) {
+            appendToSpool(batch);
+            return;
+        }
+        if (bulkIndex(batch, running ? maxRetries : 0)) {
+            return;
+        }
+        if (spool != null) {
+            appendToSpool(batch);
+            nextReplayAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spoolRetryIntervalMs);
+        } else {
+            failed.increment(batch.size());
+            log.warn("Dropping {} log entries after {} failed bulk attempts", batch.size(), maxRetries + 1);
+        }
+    }
+
+    private void appendToSpool(List<LogEntry> batch) {
+        try {
+            spool.append(batch);
+            spooled.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Dropping {} log entries, writing them to the spool failed: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sends spooled entries in bulk until the spool is empty, a request fails, or a new batch is waiting
+     * in the buffer.
+     */
+    private void replaySpool() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        while (running && !spool.isEmpty() && buffer.size() < batchSize) {
+            batch.clear();
+            if (spool.read(batch, batchSize) > 0 && !bulkIndex(batch, 0)) {
+                nextReplayAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spoolRetryIntervalMs);
+                return;
+            }
+            try {
+                spool.commit();
+            } catch (IOException e) {
+                log.warn("Could not delete replayed spool segment: {}", e.getMessage());
+            }
+            replayed.increment(batch.size());
+            if (spool.isEmpty()) {
+                log.info("Log spool replayed, indexing directly again");
+            }
+        }
+    }
+
+    private boolean bulkIndex(List<LogEntry> batch, int retries) {
+        List<IndexQuery> queries = new ArrayList<>(batch.size());
+        for (LogEntry entry : batch) {
+            queries.add(new IndexQueryBuilder().withId(entry.getId()).withObject(entry).build());
+        }
+
+        long backoffMs = 200;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                ensureIndex();
+                bulkTimer.record(() -> elasticsearchOperations.bulkIndex(queries, LogEntry.class));
+                indexed.increment(batch.size());
+                return true;
+            } catch (Exception e) {
+                if (attempt >= retries || !running) {
+                    log.warn("Bulk index of {} log entries failed after {} attempts: {}", batch.size(), attempt + 1, e.getMessage());
+                    return false;
+                }
+                log.debug("Bulk index of {} log entries failed, retrying in {} ms: {}", batch.size(), backoffMs, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, 5_000);
+            }
+        }
+    }
+
+    /**
+     * Creates the index with the LogEntry mapping before the first bulk request, so the keyword fields
+     * that log queries filter and sort on are not mapped dynamically as text.
+     */
+    private void ensureIndex() {
+        if (indexReady) {
+            return;
+        }
+        IndexOperations indexOps = elasticsearchOperations.indexOps(LogEntry.class);
+        if (!indexOps.exists()) {
+            indexOps.createWithMapping();
+            log.info("Created Elasticsearch index {}", indexOps.getIndexCoordinates().getIndexName());
+        }
+        indexReady = true;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // The flusher drains what is left before it exits
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,95 @@
+package com.prodapt.flowable.service.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer.
+ *
+ * Each slot carries a sequence number (the bounded MPMC queue design by Dmitry Vyukov, reduced to one
+ * consumer): a producer claims a slot with a single CAS on the tail and publishes it by advancing the
+ * slot's sequence, so {@link #offer} never blocks or allocates. When the buffer is full it returns
+ * {@code false} and the caller decides what to drop.
+ */
+public class LogEventRingBuffer<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	// Only the consumer thread writes head; volatile so size() can be read from anywhere
+	private volatile long head;
+
+	public LogEventRingBuffer(int requestedCapacity) {
+		if (requestedCapacity < 2) {
+			throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+		}
+		this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds an element if there is room. Safe to call from any number of threads.
+	 *
+	 * @return {@code false} if the buffer is full
+	 */
+	public boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet(index, element);
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Moves up to {@code max} published elements into {@code target}, in the order they were claimed.
+	 * Must only be called from the single consumer thread.
+	 *
+	 * @return the number of elements moved
+	 */
+	public int drainTo(List<? super E> target, int max) {
+		long position = head;
+		int drained = 0;
+		while (drained < max) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+			target.add(slots.get(index));
+			slots.lazySet(index, null);
+			sequences.lazySet(index, position + capacity);
+			position++;
+			drained++;
+		}
+		head = position;
+		return drained;
+	}
+
+	public int size() {
+		return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+}
@@ -0,0 +1,413 @@
+package com.prodapt.flowable.service.logging;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.prodapt.flowable.entity.LogEntry;
+
+import lombok.extern.slf4j.Slf4j;
+import sun.misc.Unsafe;
+
+/**
+ * Append-only local spool for log entries that could not be sent to Elasticsearch.
+ *
+ * The spool is a directory of fixed-size, memory-mapped segment files. Each segment starts with an
+ * 8-byte header (magic, version) followed by records of {@code [length][crc32][payload]}; a zero length
+ * marks the end of the written data. Entries are read back in the order they were appended, so events of
+ * one flow instance are replayed in order. Disk use is bounded by {@code maxSegments * segmentSize}: when
+ * a new segment would exceed it the oldest segment is discarded.
+ *
+ * Appending encodes straight into a reusable scratch buffer and copies it into the mapping, so it does not
+ * allocate per entry. The spool is not thread-safe; it is only used from the indexer's flusher thread.
+ *
+ * A mapping otherwise lives until its buffer is garbage collected, keeping a deleted segment's disk space
+ * (and the file, on Windows) in use, so segments are unmapped as soon as they are deleted.
+ */
+@Slf4j
+public class LogSpool {
+
+	private static final int MAGIC = 0x4C475350; // "LGSP"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 8;
+	private static final int RECORD_OVERHEAD = 8;
+	// Longer fields are truncated so every record fits in the scratch buffer and in one segment
+	private static final int MAX_FIELD_CHARS = 8192;
+	private static final int MAX_RECORD_BYTES = 9 * 4 + 8 + 8 * MAX_FIELD_CHARS * 3;
+	private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+	// Unmaps a MappedByteBuffer; null where sun.misc.Unsafe is not available, leaving it to the GC
+	private static final Unsafe UNSAFE = unsafe();
+
+	private final Path directory;
+	private final long segmentBytes;
+	private final int maxSegments;
+
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final ByteBuffer scratch = ByteBuffer.allocateDirect(MAX_RECORD_BYTES);
+	private final CRC32 crc = new CRC32();
+
+	private long readPosition;
+	// Position in the oldest segment after the last batch returned by read(), applied by commit()
+	private long pendingReadPosition = -1;
+	private int pendingSegmentsConsumed;
+	// Written by the owning thread, read by metrics
+	private volatile long sizeBytes;
+	private volatile int segmentCount;
+	private volatile long droppedSegments;
+
+	public LogSpool(Path directory, long segmentBytes, int maxSegments) throws IOException {
+		if (segmentBytes < MIN_SEGMENT_BYTES) {
+			throw new IllegalArgumentException("Spool segment size must be at least " + MIN_SEGMENT_BYTES + " bytes");
+		}
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.maxSegments = Math.max(2, maxSegments);
+		Files.createDirectories(directory);
+		recover();
+	}
+
+	/**
+	 * Appends entries at the tail of the spool and forces them to the file.
+	 */
+	public void append(List<LogEntry> entries) throws IOException {
+		for (LogEntry entry : entries) {
+			scratch.clear();
+			encode(entry, scratch);
+			scratch.flip();
+			int length = scratch.remaining();
+			crc.reset();
+			crc.update(scratch);
+			scratch.flip();
+
+			Segment tail = writableSegment(RECORD_OVERHEAD + length);
+			MappedByteBuffer buffer = tail.buffer;
+			int position = (int) tail.writePosition;
+			buffer.putInt(position + 4, (int) crc.getValue());
+			buffer.put(position + RECORD_OVERHEAD, scratch, 0, length);
+			// Length last: a record only becomes visible once it is complete
+			buffer.putInt(position, length);
+			tail.writePosition += RECORD_OVERHEAD + length;
+		}
+		if (!segments.isEmpty()) {
+			segments.peekLast().buffer.force();
+		}
+		updateStats();
+	}
+
+	public boolean isEmpty() {
+		if (segments.isEmpty()) {
+			return true;
+		}
+		return segments.size() == 1 && readPosition >= segments.peekFirst().writePosition;
+	}
+
+	/**
+	 * Reads up to {@code max} of the oldest entries without removing them; call {@link #commit()} once
+	 * they have been indexed. Records failing the CRC check end their segment and are skipped.
+	 *
+	 * @return the number of entries added to {@code target}
+	 */
+	public int read(List<LogEntry> target, int max) {
+		int read = 0;
+		int segmentsConsumed = 0;
+		long position = readPosition;
+		for (Segment segment : segments) {
+			while (read < max && position + RECORD_OVERHEAD <= segment.writePosition) {
+				MappedByteBuffer buffer = segment.buffer;
+				int length = buffer.getInt((int) position);
+				if (length <= 0 || position + RECORD_OVERHEAD + length > segment.writePosition) {
+					break;
+				}
+				int storedCrc = buffer.getInt((int) position + 4);
+				ByteBuffer payload = buffer.slice((int) position + RECORD_OVERHEAD, length);
+				crc.reset();
+				crc.update(payload.duplicate());
+				if ((int) crc.getValue() != storedCrc) {
+					log.warn("Corrupt record in spool segment {} at offset {}, skipping the rest of the segment", segment.file, position);
+					position = segment.writePosition;
+					break;
+				}
+				target.add(decode(payload));
+				position += RECORD_OVERHEAD + length;
+				read++;
+			}
+			if (read >= max) {
+				break;
+			}
+			if (segment == segments.peekLast()) {
+				break;
+			}
+			// The segment is sealed and fully read; the batch continues in the next one
+			segmentsConsumed++;
+			position = HEADER_BYTES;
+		}
+		pendingSegmentsConsumed = segmentsConsumed;
+		pendingReadPosition = position;
+		return read;
+	}
+
+	/**
+	 * Removes the entries returned by the last {@link #read} call and deletes segments that are fully consumed.
+	 */
+	public void commit() throws IOException {
+		if (pendingReadPosition < 0) {
+			return;
+		}
+		for (int i = 0; i < pendingSegmentsConsumed; i++) {
+			deleteSegment(segments.pollFirst());
+		}
+		readPosition = pendingReadPosition;
+		pendingReadPosition = -1;
+		pendingSegmentsConsumed = 0;
+
+		// Once everything is replayed start over with a fresh segment instead of growing the current one
+		if (segments.size() == 1 && readPosition >= segments.peekFirst().writePosition) {
+			deleteSegment(segments.pollFirst());
+			readPosition = HEADER_BYTES;
+		}
+		updateStats();
+	}
+
+	/**
+	 * Bytes written to the spool that have not been deleted yet, including records already replayed from
+	 * the oldest segment.
+	 */
+	public long sizeBytes() {
+		return sizeBytes;
+	}
+
+	public int segmentCount() {
+		return segmentCount;
+	}
+
+	public long droppedSegments() {
+		return droppedSegments;
+	}
+
+	private void updateStats() {
+		long bytes = 0;
+		for (Segment segment : segments) {
+			bytes += segment.writePosition;
+		}
+		sizeBytes = bytes;
+		segmentCount = segments.size();
+	}
+
+	private Segment writableSegment(int recordBytes) throws IOException {
+		Segment tail = segments.peekLast();
+		// Keep room for the zero length that terminates a sealed segment
+		if (tail != null && tail.writePosition + recordBytes + 4 <= segmentBytes) {
+			return tail;
+		}
+		if (segments.size() >= maxSegments) {
+			Segment oldest = segments.pollFirst();
+			droppedSegments++;
+			log.warn("Log spool is full ({} segments), discarding oldest segment {}", maxSegments, oldest.file);
+			deleteSegment(oldest);
+			readPosition = HEADER_BYTES;
+			pendingReadPosition = -1;
+		}
+		long sequence = tail == null ? 0 : tail.sequence + 1;
+		Segment segment = Segment.create(directory.resolve(String.format("segment-%016d.spool", sequence)), sequence, segmentBytes);
+		if (segments.isEmpty()) {
+			readPosition = HEADER_BYTES;
+		}
+		segments.addLast(segment);
+		return segment;
+	}
+
+	private void deleteSegment(Segment segment) throws IOException {
+		if (segment != null) {
+			unmap(segment.buffer);
+			Files.deleteIfExists(segment.file);
+		}
+	}
+
+	/**
+	 * Releases a mapping right away. The buffer must not be used afterwards: the segment has already been
+	 * removed from {@link #segments} and no slice of it outlives the read that made it.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		if (UNSAFE != null) {
+			UNSAFE.invokeCleaner(buffer);
+		}
+	}
+
+	private static Unsafe unsafe() {
+		try {
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return (Unsafe) field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			log.warn("Cannot unmap spool segments explicitly, deleted segments are released on garbage collection", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Reopens the segments left by a previous run. The write position of each segment is the end of its last
+	 * record with a valid CRC; anything after it (a write torn by a crash) is zeroed.
+	 */
+	private void recover() throws IOException {
+		List<Path> files;
+		try (Stream<Path> listing = Files.list(directory)) {
+			files = listing.filter(path -> path.getFileName().toString().matches("segment-\\d{16}\\.spool")).sorted().toList();
+		}
+		for (Path file : files) {
+			long sequence = Long.parseLong(file.getFileName().toString().substring(8, 24));
+			Segment segment = Segment.open(file, sequence);
+			if (segment == null) {
+				log.warn("Discarding unreadable spool segment {}", file);
+				Files.deleteIfExists(file);
+				continue;
+			}
+			segment.writePosition = scanValidEnd(segment);
+			segments.addLast(segment);
+		}
+		readPosition = HEADER_BYTES;
+		updateStats();
+		if (!segments.isEmpty()) {
+			log.info("Recovered log spool with {} segments, {} bytes to replay", segments.size(), sizeBytes());
+		}
+	}
+
+	private long scanValidEnd(Segment segment) {
+		MappedByteBuffer buffer = segment.buffer;
+		long position = HEADER_BYTES;
+		while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+			int length = buffer.getInt((int) position);
+			if (length <= 0 || position + RECORD_OVERHEAD + length > buffer.capacity()) {
+				break;
+			}
+			crc.reset();
+			crc.update(buffer.slice((int) position + RECORD_OVERHEAD, length));
+			if ((int) crc.getValue() != buffer.getInt((int) position + 4)) {
+				break;
+			}
+			position += RECORD_OVERHEAD + length;
+		}
+		for (long i = position; i < Math.min(buffer.capacity(), position + RECORD_OVERHEAD + MAX_RECORD_BYTES); i++) {
+			buffer.put((int) i, (byte) 0);
+		}
+		return position;
+	}
+
+	private static void encode(LogEntry entry, ByteBuffer target) {
+		target.putLong(entry.getTimestamp() != null ? entry.getTimestamp() : Long.MIN_VALUE);
+		putString(target, entry.getId());
+		putString(target, entry.getFlowInstanceId());
+		putString(target, entry.getDeviceId());
+		putString(target, entry.getStage());
+		putString(target, entry.getStep());
+		putString(target, entry.getStatus());
+		putString(target, entry.getMessage());
+		putString(target, entry.getLogger());
+	}
+
+	private static LogEntry decode(ByteBuffer source) {
+		LogEntry entry = new LogEntry();
+		long timestamp = source.getLong();
+		entry.setTimestamp(timestamp != Long.MIN_VALUE ? timestamp : null);
+		entry.setId(getString(source));
+		entry.setFlowInstanceId(getString(source));
+		entry.setDeviceId(getString(source));
+		entry.setStage(getString(source));
+		entry.setStep(getString(source));
+		entry.setStatus(getString(source));
+		entry.setMessage(getString(source));
+		entry.setLogger(getString(source));
+		return entry;
+	}
+
+	/**
+	 * Writes {@code [byte length][UTF-8 bytes]}, or length -1 for null, encoding char by char so no
+	 * intermediate byte array is created.
+	 */
+	private static void putString(ByteBuffer target, String value) {
+		if (value == null) {
+			target.putInt(-1);
+			return;
+		}
+		int lengthPosition = target.position();
+		target.putInt(0);
+		int length = Math.min(value.length(), MAX_FIELD_CHARS);
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				target.put((byte) c);
+			} else if (c < 0x800) {
+				target.put((byte) (0xC0 | (c >> 6)));
+				target.put((byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				target.put((byte) (0xF0 | (codePoint >> 18)));
+				target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				target.put((byte) (0x80 | (codePoint & 0x3F)));
+			} else {
+				target.put((byte) (0xE0 | (c >> 12)));
+				target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				target.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+		target.putInt(lengthPosition, target.position() - lengthPosition - 4);
+	}
+
+	private static String getString(ByteBuffer source) {
+		int length = source.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static final class Segment {
+		final Path file;
+		final long sequence;
+		final MappedByteBuffer buffer;
+		long writePosition;
+
+		private Segment(Path file, long sequence, MappedByteBuffer buffer, long writePosition) {
+			this.file = file;
+			this.sequence = sequence;
+			this.buffer = buffer;
+			this.writePosition = writePosition;
+		}
+
+		static Segment create(Path file, long sequence, long size) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+				return new Segment(file, sequence, buffer, HEADER_BYTES);
+			}
+		}
+
+		static Segment open(Path file, long sequence) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				if (channel.size() < MIN_SEGMENT_BYTES) {
+					return null;
+				}
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+				if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+					unmap(buffer);
+					return null;
+				}
+				return new Segment(file, sequence, buffer, HEADER_BYTES);
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package com.prodapt.flowable.service.logging;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Projects the step/status/message of logged workflow events onto the workflow_execution table.
+ *
+ * {@link #record} only stores the latest change per flowInstanceId in memory, so the STARTED and SUCCESS
+ * events of a step coalesce into one row write. A flusher thread writes the pending changes every
+ * {@code flush-interval-ms} as one batched UPDATE; a terminal change (the workflow completed or a step
+ * FAILED) wakes it immediately. Changes that cannot be written yet (the row is not inserted, or the batch
+ * failed) are kept for {@code max-attempts} flushes, and whatever is pending is written on shutdown.
+ *
+ * The projection writes the same status column as WorkflowExecutionUpdater, so the UPDATE increments the
+ * row's version: a versioned writer that read the row before it conflicts and applies its change again. A
+ * status set by a user action is not replaced by the projection: ABORTED, CANCELLED and OVERWRITTEN stay,
+ * and RESCHEDULED is only replaced by an event recorded after it was set.
+ *
+ * Metrics: workflow.status.recorded, .coalesced, .written, .discarded and .pending.
+ */
+@Component
+@Slf4j
+public class WorkflowStatusProjector {
+
+    // Statuses set by a user action; a RESCHEDULED row keeps its last_updated so that later events still replace it
+    private static final String KEEP_STATUS = "status IN ('ABORTED', 'CANCELLED', 'OVERWRITTEN') "
+            + "OR (status = 'RESCHEDULED' AND last_updated > ?)";
+    private static final String UPDATE_SQL = "UPDATE %sworkflow_execution SET step = ?, message = ?, "
+            + "status = CASE WHEN " + KEEP_STATUS + " THEN status ELSE ? END, "
+            + "completed = completed OR ?, completed_time = COALESCE(completed_time, ?), "
+            + "last_updated = CASE WHEN status = 'RESCHEDULED' AND last_updated > ? THEN last_updated ELSE ? END, "
+            + "version = version + 1 "
+            + "WHERE flow_instance_id = ?";
+    // JPA default length of the workflow_execution string columns
+    private static final int COLUMN_LENGTH = 255;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Value("${workflow-status.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${workflow-status.batch-size:500}")
+    private int batchSize;
+
+    @Value("${workflow-status.max-attempts:10}")
+    private int maxAttempts;
+
+    private final Map<String, StatusChange> pending = new ConcurrentHashMap<>();
+    private String updateSql;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private Counter recorded;
+    private Counter coalesced;
+    private Counter written;
+    private Counter discarded;
+
+    @PostConstruct
+    void start() {
+        updateSql = UPDATE_SQL.formatted(schema.isBlank() ? "" : schema + ".");
+        recorded = meterRegistry.counter("workflow.status.recorded");
+        coalesced = meterRegistry.counter("workflow.status.coalesced");
+        written = meterRegistry.counter("workflow.status.written");
+        discarded = meterRegistry.counter("workflow.status.discarded");
+        Gauge.builder("workflow.status.pending", pending, Map::size).register(meterRegistry);
+
+        running = true;
+        flusher = Thread.ofPlatform().name("workflow-status-flusher").daemon(true).start(this::runFlusher);
+    }
+
+    /**
+     * Records the latest step/status/message of a workflow; the row is written by the next flush.
+     */
+    public void record(String flowId, String step, String status, String message) {
+        if (flowId == null) {
+            return;
+        }
+        boolean completedNow = "vnf-spinup".equals(step) && ("SUCCESS".equals(status) || "COMPLETED".equals(status));
+        long now = System.currentTimeMillis();
+        StatusChange change = new StatusChange(step, status, message, completedNow, completedNow ? now : 0, now, 0);
+        StatusChange merged = pending.merge(flowId, change, StatusChange::then);
+        recorded.increment();
+        if (merged != change) {
+            coalesced.increment();
+        }
+        if (completedNow || "FAILED".equals(status)) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void runFlusher() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("Failed to flush workflow status updates", e);
+            }
+        }
+    }
+
+    void flush() {
+        // Changes that could not be written (row not inserted yet, or a failed batch) go back to pending only
+        // after this flush, so each flush counts one attempt
+        Map<String, StatusChange> retries = new HashMap<>();
+        while (!pending.isEmpty()) {
+            List<String> flowIds = new ArrayList<>(Math.min(batchSize, pending.size()));
+            List<StatusChange> changes = new ArrayList<>(flowIds.size());
+            for (String flowId : pending.keySet()) {
+                StatusChange change = pending.remove(flowId);
+                if (change != null) {
+                    flowIds.add(flowId);
+                    changes.add(change);
+                }
+                if (flowIds.size() >= batchSize) {
+                    break;
+                }
+            }
+            int[] counts;
+            try {
+                counts = write(flowIds, changes);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} workflow status updates, retrying on next flush", flowIds.size(), e);
+                for (int i = 0; i < flowIds.size(); i++) {
+                    retry(flowIds.get(i), changes.get(i), retries);
+                }
+                break;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    written.increment();
+                } else {
+                    retry(flowIds.get(i), changes.get(i), retries);
+                }
+            }
+        }
+        // A newer change that arrived meanwhile wins over the retried one
+        retries.forEach((flowId, retry) -> pending.merge(flowId, retry, (newer, older) -> older.then(newer)));
+    }
+
+    private void retry(String flowId, StatusChange change, Map<String, StatusChange> retries) {
+        if (change.attempts() + 1 >= maxAttempts) {
+            discarded.increment();
+            log.warn("Could not write status {} of step {} for flowId: {} after {} attempts, dropping it",
+                    change.status(), change.step(), flowId, maxAttempts);
+        } else {
+            retries.put(flowId, change.retried());
+        }
+    }
+
+    private int[] write(List<String> flowIds, List<StatusChange> changes) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(flowIds.size());
+        for (int i = 0; i < flowIds.size(); i++) {
+            StatusChange change = changes.get(i);
+            Timestamp recordedAt = new Timestamp(change.recordedAt());
+            rows.add(new Object[] { truncate(change.step()), truncate(change.message()), recordedAt, truncate(change.status()),
+                    change.completed(), change.completed() ? new Timestamp(change.completedAt()) : null, recordedAt, now,
+                    flowIds.get(i) });
+        }
+        // Drivers may report SUCCESS_NO_INFO (-2) for batched statements; only 0 means no row matched
+        return jdbcTemplate.batchUpdate(updateSql, rows);
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > COLUMN_LENGTH ? value.substring(0, COLUMN_LENGTH) : value;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+    }
+
+    private record StatusChange(String step, String status, String message, boolean completed, long completedAt,
+            long recordedAt, int attempts) {
+
+        /**
+         * Combines this change with a later one: the later step, status, message and time win, completion sticks.
+         */
+        StatusChange then(StatusChange later) {
+            boolean completedEither = completed || later.completed;
+            long completedAtFirst = completed ? completedAt : later.completedAt;
+            return new StatusChange(later.step, later.status, later.message, completedEither, completedAtFirst,
+                    later.recordedAt, Math.max(attempts, later.attempts));
+        }
+
+        StatusChange retried() {
+            return new StatusChange(step, status, message, completed, completedAt, recordedAt, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.prodapt.flowable.service.nfx;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Successful NFX responses of the device compatibility checks, per device and check endpoint.
+ *
+ * The Device Compatibility Check subprocess runs up to three times per device with identical calls; a
+ * repeat within {@code device-check-cache.ttl} is answered from here without an NFX call or a wait state.
+ * Steps that change the device (reboot, management port, activation, VNF spin-up) {@link #invalidate} its
+ * entries when they start. The cache is per node and bounded to {@code max-devices} devices; past that
+ * responses are simply not cached.
+ *
+ * Metrics: device.check.cache.hits, .misses, .invalidations and .devices.
+ */
+@Component
+@Slf4j
+public class DeviceCheckCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device-check-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device-check-cache.ttl:12h}")
+    private Duration ttl;
+
+    @Value("${device-check-cache.max-devices:50000}")
+    private int maxDevices;
+
+    private final Map<String, Map<String, CachedResponse>> devices = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter invalidations;
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter("device.check.cache.hits");
+        misses = meterRegistry.counter("device.check.cache.misses");
+        invalidations = meterRegistry.counter("device.check.cache.invalidations");
+        Gauge.builder("device.check.cache.devices", devices, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * The cached response of {@code endpoint} for the device, or {@code null} if there is none still valid.
+     */
+    public ResponseEntity<String> get(String deviceId, String endpoint) {
+        if (!enabled || deviceId == null) {
+            return null;
+        }
+        Map<String, CachedResponse> responses = devices.get(deviceId);
+        CachedResponse cached = responses != null ? responses.get(endpoint) : null;
+        if (cached == null || cached.isExpired(System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        log.debug("Using cached {} response for device {}", endpoint, deviceId);
+        return new ResponseEntity<>(cached.body(), HttpStatusCode.valueOf(cached.status()));
+    }
+
+    /**
+     * Caches a 2xx response. A response still valid in the cache is kept as is, so answering from the cache
+     * does not extend its lifetime.
+     */
+    public void put(String deviceId, String endpoint, ResponseEntity<String> response) {
+        if (!enabled || deviceId == null || !response.getStatusCode().is2xxSuccessful()) {
+            return;
+        }
+        Map<String, CachedResponse> responses = devices.get(deviceId);
+        if (responses == null) {
+            if (devices.size() >= maxDevices) {
+                return;
+            }
+            responses = devices.computeIfAbsent(deviceId, id -> new ConcurrentHashMap<>());
+        }
+        long now = System.currentTimeMillis();
+        CachedResponse fresh = new CachedResponse(response.getStatusCode().value(), response.getBody(), now + ttl.toMillis());
+        responses.merge(endpoint, fresh, (existing, replacement) -> existing.isExpired(now) ? replacement : existing);
+    }
+
+    /**
+     * Drops every cached response of the device, e.g. because a step is about to change it.
+     */
+    public void invalidate(String deviceId) {
+        if (deviceId != null && devices.remove(deviceId) != null) {
+            invalidations.increment();
+            log.debug("Invalidated cached compatibility checks of device {}", deviceId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${device-check-cache.sweep-interval-ms:300000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        devices.values().forEach(responses -> responses.values().removeIf(cached -> cached.isExpired(now)));
+        devices.values().removeIf(Map::isEmpty);
+    }
+
+    private record CachedResponse(int status, String body, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.prodapt.flowable.service.nfx;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.common.engine.api.FlowableOptimisticLockingException;
+import org.flowable.engine.ManagementService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.runtime.Execution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs NFX calls of triggerable service tasks ({@code flowable:triggerable="true"}) without holding a
+ * Flowable executor thread.
+ *
+ * The delegate's execute() hands the request to {@link #dispatch}, which records it on the execution and
+ * returns, so the job commits with the execution waiting at the task. After the commit the call is made on
+ * a virtual thread, at most {@code max-concurrent-calls} at a time, and retried {@code max-attempts} times
+ * {@code retry-delay} apart. The response is stored as local variables of the waiting execution, at most
+ * {@code max-concurrent-completions} at a time so bursts of responses do not drain the connection pool, and
+ * the execution is triggered asynchronously; the delegate's trigger() picks it up with {@link #takeResponse}.
+ *
+ * Calls lost with a node (no response after {@code stale-after}) are picked up by {@link #redispatchStale}:
+ * one node claims each call and sends it again, or fails the step if the call is not idempotent.
+ */
+@Component
+@Slf4j
+public class NfxCallDispatcher {
+
+    static final String DISPATCHED_AT = "nfxDispatchedAt";
+    static final String ACTIVITY = "nfxActivityId";
+    static final String URL = "nfxUrl";
+    static final String REQUEST = "nfxRequest";
+    static final String RESENDABLE = "nfxResendable";
+    static final String RESPONSE_STATUS = "nfxResponseStatus";
+    static final String RESPONSE_BODY = "nfxResponseBody";
+    static final String RESPONSE_ERROR = "nfxResponseError";
+
+    private static final List<String> REQUEST_VARIABLES = List.of(DISPATCHED_AT, ACTIVITY, URL, REQUEST, RESENDABLE);
+    private static final List<String> RESPONSE_VARIABLES = List.of(RESPONSE_STATUS, RESPONSE_BODY, RESPONSE_ERROR);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private ManagementService managementService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExecutorService nfxCallExecutor;
+
+    @Value("${nfx.service.auth.token:}")
+    private String authToken;
+
+    @Value("${nfx.async.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${nfx.async.retry-delay:1m}")
+    private Duration retryDelay;
+
+    @Value("${nfx.async.stale-after:90m}")
+    private Duration staleAfter;
+
+    private final Semaphore callPermits;
+    // Recording a response takes a DB connection; the calls' virtual threads queue here rather than in the pool
+    private final Semaphore completionPermits;
+    // Executions with a call running on this node, skipped by the stale sweep
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public NfxCallDispatcher(@Value("${nfx.async.max-concurrent-calls:100}") int maxConcurrentCalls,
+            @Value("${nfx.async.max-concurrent-completions:4}") int maxConcurrentCompletions) {
+        this.callPermits = new Semaphore(maxConcurrentCalls);
+        this.completionPermits = new Semaphore(maxConcurrentCompletions);
+    }
+
+    /**
+     * Whether the current activity is a triggerable service task, i.e. the delegate should
+     * {@link #dispatch} its call instead of making it on the executor thread.
+     */
+    public boolean isNonBlocking(DelegateExecution execution) {
+        FlowElement element = execution.getCurrentFlowElement();
+        return element instanceof ServiceTask serviceTask && serviceTask.isTriggerable();
+    }
+
+    /**
+     * Records the request on the waiting execution and sends it once the current transaction commits.
+     *
+     * @param resendable whether the call may be sent again when its response is lost; if not, the step fails
+     */
+    public void dispatch(DelegateExecution execution, String url, HttpEntity<?> request, boolean resendable) {
+        String executionId = execution.getId();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(DISPATCHED_AT, System.currentTimeMillis());
+        variables.put(ACTIVITY, execution.getCurrentActivityId());
+        variables.put(URL, url);
+        variables.put(REQUEST, toJson(request.getBody()));
+        variables.put(RESENDABLE, resendable);
+        execution.setVariablesLocal(variables);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(executionId, url, request);
+            return;
+        }
+        // The trigger must not arrive before the wait state is committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(executionId, url, request);
+            }
+        });
+    }
+
+    /**
+     * Continues the execution with a response obtained without calling NFX (e.g. from DeviceCheckCache): the
+     * delegate's trigger() runs in an async trigger job created in the current transaction.
+     */
+    public void respond(DelegateExecution execution, ResponseEntity<String> response) {
+        execution.setVariableLocal(RESPONSE_STATUS, response.getStatusCode().value());
+        execution.setVariableLocal(RESPONSE_BODY, response.getBody());
+        runtimeService.triggerAsync(execution.getId());
+    }
+
+    /**
+     * Returns the NFX response stored for this execution and removes the call's variables.
+     *
+     * @throws IllegalStateException if the call failed on every attempt, with the last error as message
+     */
+    public ResponseEntity<String> takeResponse(DelegateExecution execution) {
+        Integer status = (Integer) execution.getVariableLocal(RESPONSE_STATUS);
+        String body = (String) execution.getVariableLocal(RESPONSE_BODY);
+        String error = (String) execution.getVariableLocal(RESPONSE_ERROR);
+        execution.removeVariablesLocal(RESPONSE_VARIABLES);
+        if (status == null) {
+            throw new IllegalStateException(error != null ? error : "No NFX response recorded for execution " + execution.getId());
+        }
+        return new ResponseEntity<>(body, HttpStatusCode.valueOf(status));
+    }
+
+    private void send(String executionId, String url, HttpEntity<?> request) {
+        if (!inFlight.add(executionId)) {
+            return;
+        }
+        nfxCallExecutor.execute(() -> {
+            Map<String, Object> result;
+            try {
+                result = call(url, request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("NFX call {} for execution {} interrupted, it is re-sent after {}", url, executionId, staleAfter);
+                return;
+            } finally {
+                // Released before the trigger: the execution moves on to its next task with the same id
+                inFlight.remove(executionId);
+            }
+            try {
+                completionPermits.acquire();
+                try {
+                    complete(executionId, result);
+                } finally {
+                    completionPermits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Recording NFX response for execution {} interrupted, it is re-sent after {}", executionId, staleAfter);
+            } catch (Exception e) {
+                log.error("Could not record NFX response for execution {}, it is re-sent after {}", executionId, staleAfter, e);
+            }
+        });
+    }
+
+    private Map<String, Object> call(String url, HttpEntity<?> request) throws InterruptedException {
+        Map<String, Object> result = new HashMap<>();
+        int attempt = 1;
+        while (true) {
+            Duration delay = retryDelay;
+            callPermits.acquire();
+            try {
+                ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, request, String.class);
+                result.put(RESPONSE_STATUS, response.getStatusCode().value());
+                result.put(RESPONSE_BODY, response.getBody());
+                return result;
+            } catch (NfxCallRejectedException e) {
+                if (e.isBulkheadFull()) {
+                    // The endpoint is only busy: wait for a slot without using up an attempt
+                    delay = e.getRetryAfter();
+                } else if (attempt++ >= maxAttempts) {
+                    result.put(RESPONSE_ERROR, e.getMessage());
+                    return result;
+                } else {
+                    // An open circuit rejects every call until it lets a probe through
+                    delay = e.getRetryAfter().compareTo(retryDelay) > 0 ? e.getRetryAfter() : retryDelay;
+                    log.warn("NFX call {} rejected (attempt {} of {}), retrying in {}: {}", url, attempt - 1, maxAttempts, delay, e.getMessage());
+                }
+            } catch (Exception e) {
+                if (attempt++ >= maxAttempts) {
+                    result.put(RESPONSE_ERROR, e.getMessage());
+                    return result;
+                }
+                log.warn("NFX call {} failed (attempt {} of {}), retrying in {}: {}", url, attempt - 1, maxAttempts, delay, e.getMessage());
+            } finally {
+                callPermits.release();
+            }
+            Thread.sleep(delay.toMillis());
+        }
+    }
+
+    /**
+     * Stores the response on the waiting execution and triggers it, in one transaction.
+     */
+    private void complete(String executionId, Map<String, Object> result) {
+        managementService.executeCommand(commandContext -> {
+            Execution execution = runtimeService.createExecutionQuery().executionId(executionId).singleResult();
+            Object activityId = execution != null ? runtimeService.getVariableLocal(executionId, ACTIVITY) : null;
+            if (execution == null || activityId == null || !activityId.equals(execution.getActivityId())) {
+                log.info("Execution {} is no longer waiting for an NFX response, discarding it", executionId);
+                return null;
+            }
+            runtimeService.removeVariablesLocal(executionId, REQUEST_VARIABLES);
+            runtimeService.setVariablesLocal(executionId, result);
+            runtimeService.triggerAsync(executionId);
+            return null;
+        });
+    }
+
+    /**
+     * Handles the calls whose response never arrived, e.g. because the node making them stopped: each is claimed
+     * by one node, which sends it again or, if it is not idempotent, fails the step with an error response.
+     */
+    @Scheduled(fixedDelayString = "${nfx.async.stale-check-interval-ms:60000}")
+    public void redispatchStale() {
+        long cutoff = System.currentTimeMillis() - staleAfter.toMillis();
+        List<Execution> stale = runtimeService.createExecutionQuery().variableValueLessThan(DISPATCHED_AT, cutoff).listPage(0, 100);
+        for (Execution execution : stale) {
+            String executionId = execution.getId();
+            if (inFlight.contains(executionId)) {
+                continue;
+            }
+            try {
+                Map<String, Object> call = claim(executionId, cutoff);
+                if (call == null) {
+                    continue;
+                }
+                String url = (String) call.get(URL);
+                if (Boolean.FALSE.equals(call.get(RESENDABLE))) {
+                    log.warn("No NFX response for execution {} after {}, failing the step rather than sending {} again",
+                            executionId, staleAfter, url);
+                    complete(executionId, Map.of(RESPONSE_ERROR, "No NFX response after " + staleAfter + " from " + url
+                            + ", which is not sent again as it may already have been applied"));
+                    continue;
+                }
+                log.warn("No NFX response for execution {} after {}, sending {} again", executionId, staleAfter, url);
+                send(executionId, url, new HttpEntity<>(fromJson((String) call.get(REQUEST)), headers()));
+            } catch (FlowableOptimisticLockingException e) {
+                log.debug("Stale NFX call of execution {} was claimed by another node", executionId);
+            } catch (Exception e) {
+                log.error("Failed to re-send NFX call for execution {}", executionId, e);
+            }
+        }
+    }
+
+    /**
+     * Moves the call's dispatch time to now if it is still older than cutoff. The variable update is checked
+     * against the revision that was read, so of the nodes sweeping the same call only one commits the claim;
+     * the others get a FlowableOptimisticLockingException.
+     *
+     * @return the call's variables, or null if it was answered or claimed meanwhile
+     */
+    private Map<String, Object> claim(String executionId, long cutoff) {
+        return managementService.executeCommand(commandContext -> {
+            Map<String, Object> call = runtimeService.getVariablesLocal(executionId, REQUEST_VARIABLES);
+            Long dispatchedAt = (Long) call.get(DISPATCHED_AT);
+            if (dispatchedAt == null || dispatchedAt >= cutoff) {
+                return null;
+            }
+            runtimeService.setVariableLocal(executionId, DISPATCHED_AT, System.currentTimeMillis());
+            return call;
+        });
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (authToken != null && !authToken.isBlank()) {
+            headers.set("Authorization", authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
+        }
+        return headers;
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("NFX request body is not serializable", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String body) throws JsonProcessingException {
+        return objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.prodapt.flowable.service.nfx;
+
+import java.time.Duration;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of calling an NFX endpoint whose circuit is open or whose bulkhead is full.
+ */
+public class NfxCallRejectedException extends RestClientException {
+
+    private final Duration retryAfter;
+    private final boolean bulkheadFull;
+
+    public NfxCallRejectedException(String message, Duration retryAfter, boolean bulkheadFull) {
+        super(message);
+        this.retryAfter = retryAfter;
+        this.bulkheadFull = bulkheadFull;
+    }
+
+    /**
+     * How long until the endpoint is expected to accept calls again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Whether the endpoint was only busy (all bulkhead slots taken) rather than failing.
+     */
+    public boolean isBulkheadFull() {
+        return bulkheadFull;
+    }
+}
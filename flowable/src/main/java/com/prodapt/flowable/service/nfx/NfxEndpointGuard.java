@@ -0,0 +1,231 @@
+package com.prodapt.flowable.service.nfx;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.config.NfxClientProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker and bulkhead per NFX endpoint, applied to every call made through the NFX
+ * {@code RestTemplate}, so all upgrade and compatibility delegates share them.
+ *
+ * The bulkhead admits at most {@code nfx.client.bulkhead.max-concurrent-calls} calls to an endpoint at once.
+ * The breaker records I/O errors (including aborted deadlines) and 5xx responses over the last
+ * {@code sliding-window-size} calls; past {@code failure-rate-threshold} it opens and rejects calls for
+ * {@code open-duration}, then lets {@code half-open-calls} probes through and closes once they all succeed.
+ * Rejected calls fail immediately with {@link NfxCallRejectedException}, without touching the network.
+ *
+ * Metrics: nfx.circuit.state (0 closed, 1 open, 2 half-open), nfx.circuit.rejected (reason open or bulkhead)
+ * and nfx.bulkhead.active, all tagged with the endpoint; {@link #snapshot()} backs /api/nfx/endpoints.
+ */
+@Component
+@Slf4j
+public class NfxEndpointGuard implements ClientHttpRequestInterceptor {
+
+    @Autowired
+    private NfxClientProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        Endpoint endpoint = endpoints.computeIfAbsent(NfxClientProperties.endpointKey(request.getURI().getPath()), Endpoint::new);
+        boolean probe = endpoint.acquire();
+        boolean success = false;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            success = !response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            endpoint.release(probe, success);
+        }
+    }
+
+    /**
+     * Breaker and bulkhead state of every endpoint called so far.
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        endpoints.values().forEach(endpoint -> result.add(endpoint.snapshot()));
+        result.sort((a, b) -> ((String) a.get("endpoint")).compareTo((String) b.get("endpoint")));
+        return result;
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final class Endpoint {
+
+        private final String key;
+        private final NfxClientProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        private final int maxConcurrentCalls = properties.getBulkhead().getMaxConcurrentCalls();
+        private final long maxWaitMs = properties.getBulkhead().getMaxWait().toMillis();
+        private final Semaphore slots = new Semaphore(maxConcurrentCalls);
+        private final Counter rejectedOpen;
+        private final Counter rejectedBulkhead;
+
+        // Outcomes of the last calls while closed, true for a failure; guarded by this
+        private final boolean[] window = new boolean[Math.max(1, breaker.getSlidingWindowSize())];
+        private int windowNext;
+        private int windowCalls;
+        private int windowFailures;
+        private State state = State.CLOSED;
+        private long openUntil;
+        private int probesLeft;
+        private int probeSuccesses;
+
+        Endpoint(String key) {
+            this.key = key;
+            rejectedOpen = meterRegistry.counter("nfx.circuit.rejected", "endpoint", key, "reason", "open");
+            rejectedBulkhead = meterRegistry.counter("nfx.circuit.rejected", "endpoint", key, "reason", "bulkhead");
+            Gauge.builder("nfx.circuit.state", this, endpoint -> endpoint.state().ordinal()).tag("endpoint", key).register(meterRegistry);
+            Gauge.builder("nfx.bulkhead.active", slots, s -> maxConcurrentCalls - s.availablePermits()).tag("endpoint", key).register(meterRegistry);
+        }
+
+        /**
+         * Takes a bulkhead slot and asks the breaker to let the call through.
+         *
+         * @return whether the call is a half-open probe
+         */
+        boolean acquire() {
+            try {
+                if (!slots.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    rejectedBulkhead.increment();
+                    throw new NfxCallRejectedException("NFX endpoint " + key + " already has " + maxConcurrentCalls
+                            + " calls in flight", Duration.ofMillis(Math.max(maxWaitMs, 1000)), true);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NfxCallRejectedException("Interrupted waiting for NFX endpoint " + key, Duration.ZERO, true);
+            }
+            if (!breaker.isEnabled()) {
+                return false;
+            }
+            try {
+                return admit();
+            } catch (NfxCallRejectedException e) {
+                slots.release();
+                rejectedOpen.increment();
+                throw e;
+            }
+        }
+
+        void release(boolean probe, boolean success) {
+            slots.release();
+            if (breaker.isEnabled()) {
+                record(probe, success);
+            }
+        }
+
+        private synchronized boolean admit() {
+            long now = System.currentTimeMillis();
+            if (state == State.OPEN) {
+                if (now < openUntil) {
+                    throw new NfxCallRejectedException("Circuit of NFX endpoint " + key + " is open",
+                            Duration.ofMillis(openUntil - now), false);
+                }
+                state = State.HALF_OPEN;
+                probesLeft = breaker.getHalfOpenCalls();
+                probeSuccesses = 0;
+                log.info("Circuit of NFX endpoint {} is half-open, sending {} probe calls", key, probesLeft);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesLeft == 0) {
+                    throw new NfxCallRejectedException("Circuit of NFX endpoint " + key + " is half-open, waiting for probe calls",
+                            breaker.getOpenDuration(), false);
+                }
+                probesLeft--;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void record(boolean probe, boolean success) {
+            if (probe) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (!success) {
+                    open("probe call failed");
+                } else if (++probeSuccesses >= breaker.getHalfOpenCalls()) {
+                    state = State.CLOSED;
+                    resetWindow();
+                    log.info("Circuit of NFX endpoint {} closed", key);
+                }
+                return;
+            }
+            // Calls admitted before the circuit opened do not count towards the next window
+            if (state != State.CLOSED) {
+                return;
+            }
+            if (windowCalls == window.length) {
+                windowFailures -= window[windowNext] ? 1 : 0;
+            } else {
+                windowCalls++;
+            }
+            window[windowNext] = !success;
+            windowFailures += success ? 0 : 1;
+            windowNext = (windowNext + 1) % window.length;
+            if (windowCalls >= breaker.getMinimumCalls() && windowFailures * 100 >= breaker.getFailureRateThreshold() * windowCalls) {
+                open(windowFailures + " of the last " + windowCalls + " calls failed");
+            }
+        }
+
+        private void open(String reason) {
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + breaker.getOpenDuration().toMillis();
+            resetWindow();
+            log.warn("Circuit of NFX endpoint {} opened for {}: {}", key, breaker.getOpenDuration(), reason);
+        }
+
+        private void resetWindow() {
+            windowNext = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+
+        private synchronized State state() {
+            return state;
+        }
+
+        private synchronized Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", key);
+            result.put("state", breaker.isEnabled() ? state.name() : "DISABLED");
+            result.put("recordedCalls", windowCalls);
+            result.put("failedCalls", windowFailures);
+            if (state == State.OPEN) {
+                result.put("openUntil", Instant.ofEpochMilli(openUntil).toString());
+            }
+            result.put("activeCalls", maxConcurrentCalls - slots.availablePermits());
+            result.put("maxConcurrentCalls", maxConcurrentCalls);
+            result.put("rejectedOpen", (long) rejectedOpen.count());
+            result.put("rejectedBulkhead", (long) rejectedBulkhead.count());
+            return result;
+        }
+    }
+}
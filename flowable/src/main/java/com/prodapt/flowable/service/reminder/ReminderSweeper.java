@@ -0,0 +1,296 @@
+package com.prodapt.flowable.service.reminder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.prodapt.flowable.entity.ReminderDispatch;
+import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.repository.ReminderDispatchRepository;
+import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+import com.prodapt.flowable.service.EmailService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the reminder emails of all upcoming upgrades from one sweep every {@code reminder-sweeper.interval-ms},
+ * instead of a Reminder Emails loop and a Final Reminder subprocess with their own timers in every process
+ * instance. The number of timer jobs then no longer grows with the number of scheduled devices.
+ *
+ * Reminder slots count back from the scheduled time: one a week while the upgrade is more than a week away
+ * (W-2 up to W-{@code weekly-max-weeks}), then one {@code final-days} days before it (D-3, D-2, D-1). A sweep
+ * finds the devices with a slot that came due within the catch-up window in one query over
+ * WorkflowExecution.scheduledTime, reads them in batches of {@code batch-size} ordered by (scheduledTime,
+ * flowInstanceId), and claims each (device, slot) in reminder_dispatch before sending, so any number of nodes
+ * can sweep. A send that fails gives its claim back for the next sweep; a slot that came due before the
+ * workflow was created is claimed without sending.
+ *
+ * With the sweeper enabled, new process instances skip both reminder subprocesses (conditions on
+ * {@code reminderSweeper.enabled} in the UpgradeFlow model). Instances started earlier still run theirs and
+ * claim the same slots through {@link #claimLatest}, so a device is not reminded twice.
+ *
+ * Metrics: reminder.sweeper.sent, reminder.sweeper.failed and reminder.sweeper.duration.
+ */
+@Component("reminderSweeper")
+@Slf4j
+public class ReminderSweeper {
+
+    private static final Sort ORDER = Sort.by("scheduledTime", "flowInstanceId");
+
+    @Autowired
+    private WorkflowExecutionRepository workflowExecutionRepository;
+
+    @Autowired
+    private ReminderDispatchRepository reminderDispatchRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reminder-sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminder-sweeper.final-days:3,2,1}")
+    private int[] finalDays;
+
+    @Value("${reminder-sweeper.weekly-max-weeks:12}")
+    private int weeklyMaxWeeks;
+
+    @Value("${reminder-sweeper.catch-up:6h}")
+    private Duration catchUp;
+
+    @Value("${reminder-sweeper.batch-size:200}")
+    private int batchSize;
+
+    @Value("${reminder-sweeper.retention:30d}")
+    private Duration retention;
+
+    @Value("${reminder-sweeper.msim-email:msim@att.com}")
+    private String msimEmail;
+
+    // Ordered by how long before the scheduled time they come due, shortest first
+    private List<Slot> slots;
+    private Duration window;
+    private TransactionTemplate transactionTemplate;
+
+    private Counter sent;
+    private Counter failed;
+    private Timer duration;
+
+    @PostConstruct
+    void init() {
+        List<Slot> all = new ArrayList<>();
+        for (int weeks = 2; weeks <= weeklyMaxWeeks; weeks++) {
+            all.add(new Slot("W-" + weeks, Duration.ofDays(7L * weeks)));
+        }
+        for (int days : finalDays) {
+            all.add(new Slot("D-" + days, Duration.ofDays(days)));
+        }
+        all.sort(Comparator.comparing(Slot::before));
+        slots = List.copyOf(all);
+
+        // A slot's window must not reach back into the previous slot, or one device could be due for both
+        window = catchUp;
+        Duration previous = Duration.ZERO;
+        for (Slot slot : slots) {
+            Duration gap = slot.before().minus(previous);
+            if (gap.compareTo(window) < 0) {
+                window = gap;
+            }
+            previous = slot.before();
+        }
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sent = meterRegistry.counter("reminder.sweeper.sent");
+        failed = meterRegistry.counter("reminder.sweeper.failed");
+        duration = meterRegistry.timer("reminder.sweeper.duration");
+        log.info("Reminder sweeper {}, slots {}, catch-up window {}", enabled ? "enabled" : "disabled",
+                slots.stream().map(Slot::name).toList(), window);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${reminder-sweeper.interval-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        duration.record(() -> {
+            ZonedDateTime now = ZonedDateTime.now();
+            Specification<WorkflowExecution> due = dueAt(now);
+            WorkflowExecution last = null;
+            int dispatched = 0;
+            while (true) {
+                Specification<WorkflowExecution> page = due.and(after(last));
+                List<WorkflowExecution> batch = workflowExecutionRepository.findBy(page,
+                        query -> query.sortBy(ORDER).limit(batchSize).all());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                dispatched += dispatch(batch, now);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                last = batch.get(batch.size() - 1);
+            }
+            if (dispatched > 0) {
+                log.info("Reminder sweep sent {} reminder emails", dispatched);
+            }
+        });
+    }
+
+    /**
+     * Claims the latest slot of the device that has come due, for a reminder sent by the reminder subprocesses
+     * of a process instance started before the sweeper was enabled.
+     *
+     * @return false if the slot was already claimed, true otherwise (also when the sweeper is disabled or no
+     *         slot applies)
+     */
+    public boolean claimLatest(String deviceId, String flowInstanceId, Instant scheduledTime) {
+        if (!enabled || deviceId == null || scheduledTime == null) {
+            return true;
+        }
+        ZonedDateTime scheduled = scheduledTime.atZone(ZoneOffset.UTC);
+        ZonedDateTime now = ZonedDateTime.now();
+        Slot slot = latestDue(scheduled, now);
+        return slot == null || Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> claim(deviceId, flowInstanceId, slot, scheduled, now) != null));
+    }
+
+    @Scheduled(fixedDelayString = "${reminder-sweeper.cleanup-interval-ms:86400000}")
+    public void removeOld() {
+        Integer removed = transactionTemplate.execute(
+                status -> reminderDispatchRepository.deleteScheduledBefore(ZonedDateTime.now().minus(retention)));
+        if (removed != null && removed > 0) {
+            log.info("Removed {} reminder dispatch records older than {}", removed, retention);
+        }
+    }
+
+    private int dispatch(List<WorkflowExecution> batch, ZonedDateTime now) {
+        // The claims of a batch are made in one transaction and the emails sent after it has committed
+        List<Claim> claims = transactionTemplate.execute(status -> {
+            List<Claim> claimed = new ArrayList<>();
+            for (WorkflowExecution workflow : batch) {
+                Slot slot = latestDue(workflow.getScheduledTime(), now);
+                if (slot == null) {
+                    continue;
+                }
+                String id = claim(workflow.getDeviceId(), workflow.getFlowInstanceId(), slot, workflow.getScheduledTime(), now);
+                ZonedDateTime dueAt = workflow.getScheduledTime().minus(slot.before());
+                if (id != null && (workflow.getCreatedAt() == null || !workflow.getCreatedAt().isAfter(dueAt))) {
+                    claimed.add(new Claim(id, workflow));
+                }
+            }
+            return claimed;
+        });
+
+        int dispatched = 0;
+        for (Claim claim : claims) {
+            WorkflowExecution workflow = claim.workflow();
+            boolean delivered = emailService.sendReminderEmail(workflow.getLocalCustomerEmailContact(), workflow.getDeviceId(),
+                    workflow.getScheduledTime().toInstant().toString(), workflow.getFlowInstanceId(), msimEmail);
+            if (delivered) {
+                sent.increment();
+                dispatched++;
+            } else {
+                failed.increment();
+                reminderDispatchRepository.deleteById(claim.id());
+            }
+        }
+        return dispatched;
+    }
+
+    /**
+     * Records the slot for the device; returns the record id, or null if another sweep or node already did.
+     */
+    private String claim(String deviceId, String flowInstanceId, Slot slot, ZonedDateTime scheduledTime, ZonedDateTime now) {
+        String id = deviceId + "|" + slot.name() + "|" + scheduledTime.toInstant();
+        int claimed = reminderDispatchRepository.claim(id, deviceId, slot.name(), scheduledTime, flowInstanceId, now);
+        return claimed > 0 ? id : null;
+    }
+
+    /**
+     * The slot that came due last before now, or null if the upgrade has passed or no slot has come due yet.
+     */
+    private Slot latestDue(ZonedDateTime scheduledTime, ZonedDateTime now) {
+        if (scheduledTime == null || !scheduledTime.isAfter(now)) {
+            return null;
+        }
+        for (Slot slot : slots) {
+            if (!scheduledTime.minus(slot.before()).isAfter(now)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Open workflows with a slot that came due within the window and is not claimed yet.
+     */
+    private Specification<WorkflowExecution> dueAt(ZonedDateTime now) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> due = new ArrayList<>();
+            for (Slot slot : slots) {
+                Subquery<String> claimed = query.subquery(String.class);
+                Root<ReminderDispatch> dispatch = claimed.from(ReminderDispatch.class);
+                claimed.select(dispatch.get("id")).where(
+                        criteriaBuilder.equal(dispatch.get("deviceId"), root.get("deviceId")),
+                        criteriaBuilder.equal(dispatch.get("slot"), slot.name()),
+                        criteriaBuilder.equal(dispatch.get("scheduledTime"), root.get("scheduledTime")));
+
+                // scheduledTime - before is in (now - window, now]
+                ZonedDateTime latest = now.plus(slot.before());
+                due.add(criteriaBuilder.and(
+                        criteriaBuilder.greaterThan(root.get("scheduledTime"), latest.minus(window)),
+                        criteriaBuilder.lessThanOrEqualTo(root.get("scheduledTime"), latest),
+                        criteriaBuilder.not(criteriaBuilder.exists(claimed))));
+            }
+            return criteriaBuilder.and(
+                    criteriaBuilder.isFalse(root.get("completed")),
+                    criteriaBuilder.or(criteriaBuilder.isNull(root.get("status")), criteriaBuilder.notEqual(root.get("status"), "ABORTED")),
+                    criteriaBuilder.isNotNull(root.get("localCustomerEmailContact")),
+                    criteriaBuilder.or(due.toArray(new Predicate[0])));
+        };
+    }
+
+    private static Specification<WorkflowExecution> after(WorkflowExecution last) {
+        return (root, query, criteriaBuilder) -> last == null ? criteriaBuilder.conjunction() : criteriaBuilder.or(
+                criteriaBuilder.greaterThan(root.get("scheduledTime"), last.getScheduledTime()),
+                criteriaBuilder.and(
+                        criteriaBuilder.equal(root.get("scheduledTime"), last.getScheduledTime()),
+                        criteriaBuilder.greaterThan(root.get("flowInstanceId"), last.getFlowInstanceId())));
+    }
+
+    private record Slot(String name, Duration before) {
+    }
+
+    private record Claim(String id, WorkflowExecution workflow) {
+    }
+}
@@ -0,0 +1,284 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.ooxml.POIXMLTypeLoader;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streams the first sheet of a batch upgrade workbook row by row using POI's SAX event API.
+ *
+ * Only the shared strings table and the styles are kept in memory, so heap use does not grow with the
+ * number of rows. Each row is handed to the caller as soon as its closing tag is read and then discarded.
+ */
+@Component
+public class BatchUpgradeExcelReader {
+
+	/** Number of leading columns read from each row, matching the batch upgrade template. */
+	public static final int COLUMNS = 6;
+
+	@FunctionalInterface
+	public interface RowHandler {
+		/**
+		 * @param rowIndex zero-based row index, as in the sheet (the header is row 0)
+		 * @param cells    the first {@link #COLUMNS} cells of the row; missing cells are {@code null}
+		 */
+		void handle(int rowIndex, SheetCell[] cells);
+	}
+
+	/**
+	 * Copies an upload to a temp file so it can be read lazily and outlive the request.
+	 * The caller deletes the file when done.
+	 */
+	public Path spool(MultipartFile file) throws IOException {
+		Path tempFile = Files.createTempFile("batch-upgrade-", ".xlsx");
+		try {
+			file.transferTo(tempFile);
+			return tempFile;
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+	}
+
+	public void read(Path file, RowHandler handler) throws IOException {
+		// Opening the package from a file lets POI read zip entries lazily instead of buffering the upload
+		try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+			StylesTable styles = reader.getStylesTable();
+			boolean date1904 = isDate1904(reader);
+
+			Iterator<InputStream> sheets = reader.getSheetsData();
+			if (!sheets.hasNext()) {
+				throw new IllegalArgumentException("Excel file does not contain any sheet");
+			}
+			try (InputStream sheet = sheets.next()) {
+				XMLReader parser = XMLHelper.newXMLReader();
+				parser.setContentHandler(new SheetHandler(sharedStrings, styles, date1904, handler));
+				parser.parse(new InputSource(sheet));
+			}
+		} catch (OpenXML4JException | SAXException | XmlException | ParserConfigurationException e) {
+			throw new IOException("Unable to read Excel file: " + e.getMessage(), e);
+		}
+	}
+
+	private boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XmlException {
+		try (InputStream workbookData = reader.getWorkbookData()) {
+			CTWorkbook workbook = WorkbookDocument.Factory.parse(workbookData, POIXMLTypeLoader.DEFAULT_XML_OPTIONS).getWorkbook();
+			return workbook.isSetWorkbookPr() && workbook.getWorkbookPr().getDate1904();
+		}
+	}
+
+	/**
+	 * Cell value read from the sheet XML, exposing the subset of the usermodel {@code Cell} API the batch
+	 * upgrade parser relies on with the same type and conversion rules.
+	 */
+	public static class SheetCell {
+		private final CellType cellType;
+		private final CellType cachedFormulaResultType;
+		private final String text;
+		private final boolean dateFormatted;
+		private final boolean date1904;
+
+		SheetCell(CellType cellType, CellType cachedFormulaResultType, String text, boolean dateFormatted, boolean date1904) {
+			this.cellType = cellType;
+			this.cachedFormulaResultType = cachedFormulaResultType;
+			this.text = text;
+			this.dateFormatted = dateFormatted;
+			this.date1904 = date1904;
+		}
+
+		public CellType getCellType() {
+			return cellType;
+		}
+
+		public String getStringCellValue() {
+			CellType valueType = cellType == CellType.FORMULA ? cachedFormulaResultType : cellType;
+			if (valueType == CellType.BLANK) {
+				return "";
+			}
+			if (valueType != CellType.STRING) {
+				throw new IllegalStateException("Cannot get a STRING value from a " + valueType + " cell");
+			}
+			return text;
+		}
+
+		public double getNumericCellValue() {
+			CellType valueType = cellType == CellType.FORMULA ? cachedFormulaResultType : cellType;
+			if (valueType == CellType.BLANK) {
+				return 0.0;
+			}
+			if (valueType != CellType.NUMERIC) {
+				throw new IllegalStateException("Cannot get a NUMERIC value from a " + valueType + " cell");
+			}
+			return text == null || text.isEmpty() ? 0.0 : Double.parseDouble(text);
+		}
+
+		public boolean getBooleanCellValue() {
+			return "1".equals(text) || "true".equalsIgnoreCase(text);
+		}
+
+		/** Same rule as {@link DateUtil#isCellDateFormatted}: a valid Excel date in a date number format. */
+		public boolean isDateFormatted() {
+			return cellType == CellType.NUMERIC && dateFormatted && DateUtil.isValidExcelDate(getNumericCellValue());
+		}
+
+		public Date getDateCellValue() {
+			return DateUtil.getJavaDate(getNumericCellValue(), date1904);
+		}
+	}
+
+	/**
+	 * Collects the cells of one {@code <row>} element at a time. Cell types follow the sheet XML:
+	 * {@code t="s"} shared string, {@code t="inlineStr"} / {@code t="str"} string, {@code t="b"} boolean,
+	 * {@code t="e"} error and numeric otherwise; a {@code <f>} child makes the cell a formula.
+	 */
+	private static class SheetHandler extends DefaultHandler {
+		private final ReadOnlySharedStringsTable sharedStrings;
+		private final StylesTable styles;
+		private final boolean date1904;
+		private final RowHandler rowHandler;
+
+		private SheetCell[] cells;
+		private int rowIndex = -1;
+		private int nextColumn;
+
+		private int column;
+		private String type;
+		private String styleIndex;
+		private boolean formula;
+		private boolean hasValue;
+		private boolean inValue;
+		private boolean inInlineText;
+		private boolean inPhonetic;
+		private final StringBuilder value = new StringBuilder();
+
+		SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, RowHandler rowHandler) {
+			this.sharedStrings = sharedStrings;
+			this.styles = styles;
+			this.date1904 = date1904;
+			this.rowHandler = rowHandler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			switch (localName) {
+				case "row" -> {
+					String r = attributes.getValue("r");
+					rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+					cells = new SheetCell[COLUMNS];
+					nextColumn = 0;
+				}
+				case "c" -> {
+					String ref = attributes.getValue("r");
+					column = ref != null ? new CellReference(ref).getCol() : nextColumn;
+					nextColumn = column + 1;
+					type = attributes.getValue("t");
+					styleIndex = attributes.getValue("s");
+					formula = false;
+					hasValue = false;
+					value.setLength(0);
+				}
+				case "f" -> formula = true;
+				case "v" -> {
+					inValue = true;
+					hasValue = true;
+				}
+				case "t" -> {
+					if (!inPhonetic) {
+						inInlineText = true;
+						hasValue = true;
+					}
+				}
+				case "rPh" -> inPhonetic = true;
+				default -> {
+				}
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (inValue || inInlineText) {
+				value.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			switch (localName) {
+				case "v" -> inValue = false;
+				case "t" -> inInlineText = false;
+				case "rPh" -> inPhonetic = false;
+				case "c" -> {
+					if (column < COLUMNS) {
+						cells[column] = toCell();
+					}
+				}
+				case "row" -> {
+					rowHandler.handle(rowIndex, cells);
+					cells = null;
+				}
+				default -> {
+				}
+			}
+		}
+
+		private SheetCell toCell() {
+			CellType valueType;
+			String text = value.toString();
+			if ("s".equals(type)) {
+				valueType = CellType.STRING;
+				text = hasValue ? sharedStrings.getItemAt(Integer.parseInt(text.trim())).getString() : "";
+			} else if ("inlineStr".equals(type) || "str".equals(type)) {
+				valueType = CellType.STRING;
+			} else if ("b".equals(type)) {
+				valueType = CellType.BOOLEAN;
+			} else if ("e".equals(type)) {
+				valueType = CellType.ERROR;
+			} else {
+				valueType = hasValue ? CellType.NUMERIC : CellType.BLANK;
+			}
+
+			if (formula) {
+				return new SheetCell(CellType.FORMULA, valueType, text, false, date1904);
+			}
+			return new SheetCell(valueType, null, text, valueType == CellType.NUMERIC && isDateStyle(), date1904);
+		}
+
+		private boolean isDateStyle() {
+			if (styleIndex == null || styles == null) {
+				return false;
+			}
+			XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(styleIndex));
+			return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+		}
+	}
+}
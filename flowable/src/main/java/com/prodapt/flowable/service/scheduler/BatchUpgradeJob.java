@@ -0,0 +1,118 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * Progress of one batch upgrade upload.
+ *
+ * Counters are updated from the pipeline threads and read by the status endpoint while the job runs.
+ * {@code total} grows while the sheet is read; a device counts as processed once it has been started
+ * ({@code success}), skipped as a duplicate ({@code skipped}), parked for overwrite confirmation
+ * ({@code awaitingConfirmation}) or rejected ({@code failed}).
+ */
+@Getter
+public class BatchUpgradeJob {
+
+	public enum State {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+
+	private final String id = UUID.randomUUID().toString();
+	private final String fileName;
+	private final ZonedDateTime createdAt = ZonedDateTime.now();
+	private volatile ZonedDateTime finishedAt;
+	private volatile State state = State.QUEUED;
+	private volatile Map<String, Object> result;
+
+	private final AtomicInteger total = new AtomicInteger();
+	private final AtomicInteger success = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger awaitingConfirmation = new AtomicInteger();
+
+	public BatchUpgradeJob(String fileName) {
+		this.fileName = fileName;
+	}
+
+	void started() {
+		state = State.RUNNING;
+	}
+
+	void rowAccepted() {
+		total.incrementAndGet();
+	}
+
+	void succeeded(int count) {
+		success.addAndGet(count);
+	}
+
+	void failed(int count) {
+		failed.addAndGet(count);
+	}
+
+	void skipped(int count) {
+		skipped.addAndGet(count);
+	}
+
+	void awaitingConfirmation(int count) {
+		awaitingConfirmation.addAndGet(count);
+	}
+
+	void completed(Map<String, Object> result) {
+		this.result = result;
+		this.state = result.get("status") == null ? State.COMPLETED : State.FAILED;
+		this.finishedAt = ZonedDateTime.now();
+	}
+
+	void aborted(String message) {
+		Map<String, Object> error = new HashMap<>();
+		error.put("message", "Error processing Excel file: " + message);
+		this.result = error;
+		this.state = State.FAILED;
+		this.finishedAt = ZonedDateTime.now();
+	}
+
+	public boolean isFinished() {
+		return state == State.COMPLETED || state == State.FAILED;
+	}
+
+	/**
+	 * Snapshot in the shape polled by the UI ({@code processed}, {@code total}, {@code success},
+	 * {@code skipped}, {@code awaitingConfirmation}, {@code pending}, {@code failed}); the pipeline result is
+	 * attached once the job has finished.
+	 */
+	public Map<String, Object> toStatus() {
+		int successCount = success.get();
+		int failedCount = failed.get();
+		int skippedCount = skipped.get();
+		int awaitingCount = awaitingConfirmation.get();
+		int processedCount = successCount + failedCount + skippedCount + awaitingCount;
+		int totalCount = total.get();
+
+		Map<String, Object> status = new HashMap<>();
+		status.put("jobId", id);
+		status.put("fileName", fileName);
+		status.put("state", state);
+		status.put("createdAt", createdAt);
+		status.put("finishedAt", finishedAt);
+		status.put("total", totalCount);
+		status.put("processed", processedCount);
+		status.put("success", successCount);
+		status.put("skipped", skippedCount);
+		status.put("awaitingConfirmation", awaitingCount);
+		status.put("failed", failedCount);
+		status.put("pending", Math.max(0, totalCount - processedCount));
+		if (result != null) {
+			Map<String, Object> body = new HashMap<>(result);
+			body.remove("status");
+			status.put("result", body);
+		}
+		return status;
+	}
+}
@@ -0,0 +1,95 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs batch upgrade uploads in the background so the upload request returns as soon as the file is stored.
+ *
+ * Jobs live in memory on the node that accepted the upload and are dropped {@code retention-minutes}
+ * after they finish.
+ */
+@Service
+@Slf4j
+public class BatchUpgradeJobService {
+
+	private final Map<String, BatchUpgradeJob> jobs = new ConcurrentHashMap<>();
+
+	@Autowired
+	private SchedulingService schedulingService;
+
+	@Autowired
+	private BatchUpgradeExcelReader batchUpgradeExcelReader;
+
+	@Autowired
+	@Qualifier("batchUpgradeJobExecutor")
+	private ExecutorService batchUpgradeJobExecutor;
+
+	@Value("${batch-upgrade.jobs.retention-minutes:60}")
+	private long retentionMinutes;
+
+	/**
+	 * Stores the upload and queues it for processing.
+	 *
+	 * @throws RejectedExecutionException when the job queue is full
+	 */
+	public BatchUpgradeJob submit(MultipartFile file) throws IOException {
+		// The multipart temp file is deleted when the request completes, so keep our own copy
+		Path excelFile = batchUpgradeExcelReader.spool(file);
+		BatchUpgradeJob job = new BatchUpgradeJob(file.getOriginalFilename());
+		jobs.put(job.getId(), job);
+		try {
+			batchUpgradeJobExecutor.execute(() -> run(job, excelFile));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			Files.deleteIfExists(excelFile);
+			throw e;
+		}
+		log.info("Queued batch upgrade job {} for file {}", job.getId(), job.getFileName());
+		return job;
+	}
+
+	public Optional<BatchUpgradeJob> getJob(String jobId) {
+		return Optional.ofNullable(jobs.get(jobId));
+	}
+
+	private void run(BatchUpgradeJob job, Path excelFile) {
+		job.started();
+		try {
+			job.completed(schedulingService.processBatchUpgradeExcel(excelFile, job));
+			log.info("Batch upgrade job {} finished: {} of {} devices processed, {} failed",
+					job.getId(), job.getSuccess().get() + job.getFailed().get(), job.getTotal().get(), job.getFailed().get());
+		} catch (Exception e) {
+			log.error("Batch upgrade job {} failed", job.getId(), e);
+			job.aborted(e.getMessage() != null ? e.getMessage() : "Unknown error occurred");
+		} finally {
+			try {
+				Files.deleteIfExists(excelFile);
+			} catch (IOException e) {
+				log.warn("Could not delete batch upgrade file {}: {}", excelFile, e.getMessage());
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${batch-upgrade.jobs.cleanup-interval-ms:60000}")
+	void removeFinishedJobs() {
+		ZonedDateTime cutoff = ZonedDateTime.now().minusMinutes(retentionMinutes);
+		jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+	}
+}
@@ -0,0 +1,293 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+import com.prodapt.flowable.service.scheduler.SchedulingService.DeviceRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts UpgradeFlow process instances for a batch of devices.
+ *
+ * In parallel mode the devices are split into chunks, each chunk is started in its own transaction on the
+ * batch upgrade executor and at most {@code max-concurrency} chunks run at once. When a chunk fails, its
+ * devices are retried one transaction per device so a single bad device cannot fail its neighbours.
+ * Results are always returned in the order of the input list.
+ *
+ * A device whose transaction committed but whose post-commit processing failed is started all the same; its
+ * entry carries {@link #POST_COMMIT_FAILED} and the reason, and it is counted in
+ * batch.upgrade.start.post.commit.failed.
+ */
+@Service
+@Slf4j
+public class BatchUpgradeStarter {
+
+	static final String POST_COMMIT_FAILED = " - post-commit processing failed: ";
+
+	@Autowired
+	private RuntimeService runtimeService;
+
+	@Autowired
+	private RepositoryService repositoryService;
+
+	@Autowired
+	private WorkflowExecutionRepository workflowExecutionRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("batchUpgradeExecutor")
+	private ExecutorService batchUpgradeExecutor;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${batch-upgrade.start.parallel:true}")
+	private boolean parallel;
+
+	@Value("${batch-upgrade.start.chunk-size:50}")
+	private int chunkSize;
+
+	// 0 derives the cap from the CPU count and the database pool size
+	@Value("${batch-upgrade.start.max-concurrency:0}")
+	private int maxConcurrency;
+
+	@Value("${spring.datasource.hikari.maximum-pool-size:10}")
+	private int dbPoolSize;
+
+	private TransactionTemplate transactionTemplate;
+
+	private int concurrency;
+
+	private Counter postCommitFailed;
+
+	@PostConstruct
+	void init() {
+		postCommitFailed = meterRegistry.counter("batch.upgrade.start.post.commit.failed");
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		concurrency = maxConcurrency > 0
+				? maxConcurrency
+				: Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), dbPoolSize / 2));
+		log.info("Batch upgrade start mode: {}, chunk size {}, max concurrency {}",
+				parallel ? "parallel" : "sequential", chunkSize, concurrency);
+	}
+
+	/**
+	 * Starts one process per device.
+	 *
+	 * @param onStarted called with each entry as soon as it is committed, possibly from several threads at once
+	 * @return one entry per device, in input order: "deviceId: processInstanceId" or "deviceId: FAILED - reason",
+	 *         the former followed by {@link #POST_COMMIT_FAILED} and the reason when that failed
+	 */
+	public List<String> start(List<DeviceRequest> devices, Consumer<String> onStarted) {
+		ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
+				.processDefinitionKey("UpgradeFlow").latestVersion().singleResult();
+
+		if (!parallel || devices.size() <= chunkSize) {
+			List<String> results = new ArrayList<>(devices.size());
+			for (DeviceRequest device : devices) {
+				String result = startInOwnTransaction(device, processDefinition);
+				onStarted.accept(result);
+				results.add(result);
+			}
+			return results;
+		}
+		return startParallel(devices, processDefinition, onStarted);
+	}
+
+	private List<String> startParallel(List<DeviceRequest> devices, ProcessDefinition processDefinition, Consumer<String> onStarted) {
+		String[] results = new String[devices.size()];
+		Semaphore permits = new Semaphore(concurrency);
+		List<Future<?>> futures = new ArrayList<>();
+
+		try {
+			for (int from = 0; from < devices.size(); from += chunkSize) {
+				int start = from;
+				int end = Math.min(from + chunkSize, devices.size());
+				permits.acquire();
+				try {
+					futures.add(batchUpgradeExecutor.submit(() -> {
+						try {
+							startChunk(devices, start, end, processDefinition, results, onStarted);
+						} finally {
+							permits.release();
+						}
+					}));
+				} catch (RuntimeException e) {
+					permits.release();
+					throw e;
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Interrupted while starting batch upgrade", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Batch upgrade chunk failed unexpectedly", e.getCause());
+		}
+
+		List<String> ordered = new ArrayList<>(results.length);
+		for (int i = 0; i < results.length; i++) {
+			ordered.add(results[i] != null ? results[i] : devices.get(i).getDeviceId() + ": FAILED - not started");
+		}
+		return ordered;
+	}
+
+	private void startChunk(List<DeviceRequest> devices, int from, int to, ProcessDefinition processDefinition, String[] results,
+			Consumer<String> onStarted) {
+		Committed<List<String>> chunkResults;
+		try {
+			chunkResults = inTransaction(() -> {
+				List<WorkflowExecution> executions = new ArrayList<>(to - from);
+				for (int i = from; i < to; i++) {
+					executions.add(startProcess(devices.get(i), processDefinition));
+				}
+				// One batched insert for the chunk instead of a round-trip per device
+				workflowExecutionRepository.saveAll(executions);
+				return executions.stream().map(BatchUpgradeStarter::toResult).toList();
+			});
+		} catch (Exception e) {
+			log.warn("Batch upgrade chunk [{}, {}) rolled back ({}), retrying devices individually", from, to, e.getMessage());
+			for (int i = from; i < to; i++) {
+				results[i] = startInOwnTransaction(devices.get(i), processDefinition);
+				onStarted.accept(results[i]);
+			}
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			results[i] = chunkResults.describe(chunkResults.result().get(i - from));
+			onStarted.accept(results[i]);
+		}
+	}
+
+	private String startInOwnTransaction(DeviceRequest device, ProcessDefinition processDefinition) {
+		try {
+			Committed<String> started = inTransaction(() -> toResult(workflowExecutionRepository.save(startProcess(device, processDefinition))));
+			return started.describe(started.result());
+		} catch (Exception e) {
+			return device.getDeviceId() + ": FAILED - " + e.getMessage();
+		}
+	}
+
+	/**
+	 * Runs the work in a new transaction. A failure raised after the commit (for example by Flowable's
+	 * job notification listeners) does not discard the committed result, so callers never start the same
+	 * device twice; it is returned with the result and counted.
+	 */
+	private <T> Committed<T> inTransaction(Supplier<T> work) {
+		AtomicBoolean committed = new AtomicBoolean();
+		AtomicReference<T> result = new AtomicReference<>();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int completionStatus) {
+						committed.set(completionStatus == STATUS_COMMITTED);
+					}
+				});
+				result.set(work.get());
+			});
+		} catch (RuntimeException e) {
+			if (!committed.get()) {
+				throw e;
+			}
+			postCommitFailed.increment();
+			log.warn("Batch upgrade transaction committed but post-commit processing failed: {}", e.getMessage());
+			return new Committed<>(result.get(), String.valueOf(e.getMessage()));
+		}
+		return new Committed<>(result.get(), null);
+	}
+
+	/**
+	 * Starts the process for a device and returns its tracking row, not yet saved.
+	 */
+	private WorkflowExecution startProcess(DeviceRequest device, ProcessDefinition processDefinition) {
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("deviceId", device.getDeviceId());
+		variables.put("customerEmail", device.getCustomerEmail());
+
+		ZonedDateTime scheduledTime = null;
+		if (device.getScheduledZoneDateTime() != null && !device.getScheduledZoneDateTime().trim().isEmpty()) {
+			try {
+				scheduledTime = ZonedDateTime.parse(device.getScheduledZoneDateTime());
+				// Convert to Instant for Flowable timer compatibility
+				variables.put("scheduledUpgradeDateTime", scheduledTime.toInstant());
+
+				ZonedDateTime preUpgradeTime = scheduledTime.minusDays(7);
+				variables.put("preUpgradeDateTime", preUpgradeTime.toInstant());
+			} catch (Exception e) {
+				// Continue without scheduled time
+			}
+		}
+		variables.put("assignedDTAC", device.getAssignedDtac());
+		ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("UpgradeFlow", variables);
+
+		WorkflowExecution workflowExecution = new WorkflowExecution();
+		workflowExecution.setFlowInstanceId(processInstance.getId());
+		workflowExecution.setDeviceId(device.getDeviceId());
+		workflowExecution.setLocalCustomerEmailContact(device.getCustomerEmail());
+		workflowExecution.setScheduledTime(scheduledTime);
+		workflowExecution.setProcessName(processDefinition.getName());
+		workflowExecution.setProcessFlowId(processDefinition.getId());
+		workflowExecution.setStatus("STARTED");
+		workflowExecution.setAssignedDtac(device.getAssignedDtac());
+		return workflowExecution;
+	}
+
+	/**
+	 * Whether an entry returned by {@link #start} is for a device that was not started.
+	 */
+	static boolean isFailed(String entry) {
+		return entry.contains("FAILED") && !entry.contains(POST_COMMIT_FAILED);
+	}
+
+	private static String toResult(WorkflowExecution workflowExecution) {
+		return workflowExecution.getDeviceId() + ": " + workflowExecution.getFlowInstanceId();
+	}
+
+	/**
+	 * The result of a committed transaction, and why its post-commit processing failed if it did.
+	 */
+	private record Committed<T>(T result, String postCommitFailure) {
+
+		String describe(String entry) {
+			return postCommitFailure == null ? entry : entry + POST_COMMIT_FAILED + postCommitFailure;
+		}
+	}
+}
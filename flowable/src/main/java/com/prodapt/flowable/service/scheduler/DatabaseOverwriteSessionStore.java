@@ -0,0 +1,103 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodapt.flowable.entity.OverwriteSession;
+import com.prodapt.flowable.repository.OverwriteSessionRepository;
+import com.prodapt.flowable.service.scheduler.SchedulingService.OverwriteData;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Overwrite sessions shared by all nodes through the overwrite_session table.
+ *
+ * The session is stored as gzipped JSON; an overwrite list compresses well because most of it is repeated
+ * field names and device id prefixes.
+ */
+@Component
+@ConditionalOnProperty(name = "batch-upgrade.overwrite.store", havingValue = "database")
+@Slf4j
+public class DatabaseOverwriteSessionStore implements OverwriteSessionStore {
+
+	@Autowired
+	private OverwriteSessionRepository overwriteSessionRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${batch-upgrade.overwrite.expiry-minutes:3}")
+	private long expiryMinutes;
+
+	@Override
+	public void put(OverwriteData overwriteData) {
+		OverwriteSession session = new OverwriteSession();
+		session.setId(overwriteData.getId());
+		session.setCreatedAt(overwriteData.getCreatedAt());
+		session.setExpiresAt(overwriteData.getCreatedAt().plusMinutes(expiryMinutes));
+		session.setPayload(serialize(overwriteData));
+		overwriteSessionRepository.save(session);
+	}
+
+	@Override
+	public Optional<OverwriteData> get(String overwriteId) {
+		return overwriteSessionRepository.findById(overwriteId).map(session -> deserialize(session.getPayload()));
+	}
+
+	@Override
+	public void remove(String overwriteId) {
+		overwriteSessionRepository.deleteById(overwriteId);
+	}
+
+	@Override
+	@Transactional
+	public Optional<OverwriteData> claim(String overwriteId) {
+		// A concurrent claim blocks on the row until the first one commits, then deletes nothing
+		return overwriteSessionRepository.findById(overwriteId)
+				.filter(session -> overwriteSessionRepository.deleteSession(overwriteId) == 1)
+				.map(session -> deserialize(session.getPayload()));
+	}
+
+	@Override
+	@Transactional
+	@Scheduled(fixedDelayString = "${batch-upgrade.overwrite.cleanup-interval-ms:60000}")
+	public int removeExpired() {
+		int removed = overwriteSessionRepository.deleteExpired(ZonedDateTime.now());
+		if (removed > 0) {
+			log.info("Cleaned up {} expired overwrite sessions", removed);
+		}
+		return removed;
+	}
+
+	private byte[] serialize(OverwriteData overwriteData) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			objectMapper.writeValue(gzip, overwriteData);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not serialize overwrite session " + overwriteData.getId(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private OverwriteData deserialize(byte[] payload) {
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+			return objectMapper.readValue(gzip, OverwriteData.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read overwrite session", e);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.prodapt.flowable.service.scheduler.SchedulingService.OverwriteData;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Overwrite sessions kept in this node's heap, bounded by count and age.
+ *
+ * When {@code max-sessions} is reached the least recently used session is evicted.
+ */
+@Component
+@ConditionalOnProperty(name = "batch-upgrade.overwrite.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryOverwriteSessionStore implements OverwriteSessionStore {
+
+	private final long expiryMinutes;
+	private final Map<String, OverwriteData> sessions;
+
+	public InMemoryOverwriteSessionStore(@Value("${batch-upgrade.overwrite.expiry-minutes:3}") long expiryMinutes,
+			@Value("${batch-upgrade.overwrite.max-sessions:1000}") int maxSessions) {
+		this.expiryMinutes = expiryMinutes;
+		this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, OverwriteData> eldest) {
+				if (size() > maxSessions) {
+					log.warn("Overwrite session limit {} reached, evicting session {}", maxSessions, eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public synchronized void put(OverwriteData overwriteData) {
+		sessions.put(overwriteData.getId(), overwriteData);
+	}
+
+	@Override
+	public synchronized Optional<OverwriteData> get(String overwriteId) {
+		return Optional.ofNullable(sessions.get(overwriteId));
+	}
+
+	@Override
+	public synchronized void remove(String overwriteId) {
+		sessions.remove(overwriteId);
+	}
+
+	@Override
+	public synchronized Optional<OverwriteData> claim(String overwriteId) {
+		return Optional.ofNullable(sessions.remove(overwriteId));
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${batch-upgrade.overwrite.cleanup-interval-ms:60000}")
+	public synchronized int removeExpired() {
+		ZonedDateTime cutoff = ZonedDateTime.now().minusMinutes(expiryMinutes);
+		int before = sessions.size();
+		sessions.entrySet().removeIf(entry -> {
+			boolean expired = entry.getValue().getCreatedAt().isBefore(cutoff);
+			if (expired) {
+				log.info("Cleaning up expired overwrite data with ID: {}", entry.getKey());
+			}
+			return expired;
+		});
+		return before - sessions.size();
+	}
+}
@@ -0,0 +1,36 @@
+package com.prodapt.flowable.service.scheduler;
+
+import java.util.Optional;
+
+import com.prodapt.flowable.service.scheduler.SchedulingService.OverwriteData;
+
+/**
+ * Holds batch upgrade overwrite sessions between the upload and the confirmation.
+ *
+ * Selected with {@code batch-upgrade.overwrite.store}: "memory" keeps sessions on the node that created them,
+ * "database" shares them through the overwrite_session table so any node can confirm any session.
+ * Sessions older than {@code batch-upgrade.overwrite.expiry-minutes} are removed in the background.
+ */
+public interface OverwriteSessionStore {
+
+	void put(OverwriteData overwriteData);
+
+	/**
+	 * Returns the session even if it has expired but not been cleaned up yet, so callers can tell
+	 * an expired session apart from an unknown one.
+	 */
+	Optional<OverwriteData> get(String overwriteId);
+
+	void remove(String overwriteId);
+
+	/**
+	 * Removes the session and returns it, expired or not. Of concurrent claims of the same session, on any
+	 * node, only one gets it, so a session is applied at most once.
+	 */
+	Optional<OverwriteData> claim(String overwriteId);
+
+	/**
+	 * @return the number of sessions removed
+	 */
+	int removeExpired();
+}
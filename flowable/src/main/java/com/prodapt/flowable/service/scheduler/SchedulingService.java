@@ -2,128 +2,101 @@ package com.prodapt.flowable.service.scheduler;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.repository.EmployeeRepository;
 import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+import com.prodapt.flowable.service.scheduler.BatchUpgradeExcelReader.SheetCell;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class SchedulingService {
 
-	// Static map to store overwrite data with auto-cleanup
-	private static final java.util.concurrent.ConcurrentHashMap<String, OverwriteData> overwriteStore = new java.util.concurrent.ConcurrentHashMap<>();
-	private static final long OVERWRITE_EXPIRY_MINUTES = 3;
-
-	// Scheduled cleanup task
-	static {
-		java.util.concurrent.ScheduledExecutorService cleanupExecutor = java.util.concurrent.Executors.newSingleThreadScheduledExecutor();
-		cleanupExecutor.scheduleAtFixedRate(() -> {
-			ZonedDateTime now = ZonedDateTime.now();
-			overwriteStore.entrySet().removeIf(entry -> {
-				boolean expired = entry.getValue().getCreatedAt().plusMinutes(OVERWRITE_EXPIRY_MINUTES).isBefore(now);
-				if (expired) {
-					log.info("Cleaning up expired overwrite data with ID: {}", entry.getKey());
-				}
-				return expired;
-			});
-		}, 1, 1, java.util.concurrent.TimeUnit.MINUTES); // Run every minute
-	}
-
 	@Autowired
 	private RuntimeService runtimeService;
 
 	@Autowired
-	private RepositoryService repositoryService;
+	private BatchUpgradeStarter batchUpgradeStarter;
 
 	@Autowired
-	private WorkflowExecutionRepository workflowExecutionRepository;
+	private BatchUpgradeExcelReader batchUpgradeExcelReader;
 
 	@Autowired
-	private com.prodapt.flowable.repository.EmployeeRepository employeeRepository;
+	private PlatformTransactionManager transactionManager;
 
 	@Autowired
-	private com.prodapt.flowable.repository.TaskRepository taskRepository;
+	private OverwriteSessionStore overwriteSessionStore;
 
-	public Map<String, Object> startBatchUpgrade(List<DeviceRequest> devices) {
-		Map<String, Object> response = new HashMap<>();
-		List<String> startedProcesses = new ArrayList<>();
+	@Value("${batch-upgrade.overwrite.expiry-minutes:3}")
+	private long overwriteExpiryMinutes;
 
-		// Fetch process definition details outside the loop for efficiency
-		org.flowable.engine.repository.ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
-				.processDefinitionKey("UpgradeFlow").latestVersion().singleResult();
-		String processName = processDefinition.getName();
-		String processFlowId = processDefinition.getId();
+	@Value("${batch-upgrade.confirm.chunk-size:100}")
+	private int confirmChunkSize;
 
-		for (DeviceRequest device : devices) {
-			try {
-				Map<String, Object> variables = new HashMap<>();
-				variables.put("deviceId", device.getDeviceId());
-				variables.put("customerEmail", device.getCustomerEmail());
-
-				if (device.getScheduledZoneDateTime() != null && !device.getScheduledZoneDateTime().trim().isEmpty()) {
-					try {
-						ZonedDateTime scheduledTime = ZonedDateTime.parse(device.getScheduledZoneDateTime());
-						// Convert to Instant for Flowable timer compatibility
-						variables.put("scheduledUpgradeDateTime", scheduledTime.toInstant());
-
-						ZonedDateTime preUpgradeTime = scheduledTime.minusDays(7);
-						variables.put("preUpgradeDateTime", preUpgradeTime.toInstant());
-					} catch (Exception e) {
-						// Continue without scheduled time
-					}
-				}
-				variables.put("assignedDTAC", device.getAssignedDtac());
-				ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("UpgradeFlow", variables);
+	@Autowired
+	private WorkflowExecutionRepository workflowExecutionRepository;
+
+	@Autowired
+	private com.prodapt.flowable.repository.TaskRepository taskRepository;
 
-				WorkflowExecution workflowExecution = new WorkflowExecution();
-				workflowExecution.setFlowInstanceId(processInstance.getId());
-				workflowExecution.setDeviceId(device.getDeviceId());
-				workflowExecution.setLocalCustomerEmailContact(device.getCustomerEmail());
-				workflowExecution.setProcessName(processName);
-				workflowExecution.setProcessFlowId(processFlowId);
-				workflowExecution.setStatus("STARTED");
-				workflowExecution.setAssignedDtac(device.getAssignedDtac());
-				workflowExecutionRepository.save(workflowExecution);
+	@Autowired
+	private EmployeeRepository employeeRepository;
 
-				startedProcesses.add(device.getDeviceId() + ": " + processInstance.getId());
+	public Map<String, Object> startBatchUpgrade(List<DeviceRequest> devices) {
+		return startBatchUpgrade(devices, process -> { });
+	}
 
-			} catch (Exception e) {
-				startedProcesses.add(device.getDeviceId() + ": FAILED - " + e.getMessage());
-			}
-		}
+	/**
+	 * @param onStarted called with each "deviceId: processInstanceId" / "deviceId: FAILED - reason" entry as soon as it is known
+	 */
+	public Map<String, Object> startBatchUpgrade(List<DeviceRequest> devices, Consumer<String> onStarted) {
+		Map<String, Object> response = new HashMap<>();
+		List<String> startedProcesses = batchUpgradeStarter.start(devices, onStarted);
 
 		response.put("message", "Batch device upgrade initiated");
 		response.put("processes", startedProcesses);
 		response.put("totalDevices", devices.size());
 		response.put("completed", startedProcesses.size());
+		// Started, but something after their commit failed; shown apart so they are not taken for clean starts
+		List<String> postCommitFailures = startedProcesses.stream()
+				.filter(process -> process.contains(BatchUpgradeStarter.POST_COMMIT_FAILED)).toList();
+		if (!postCommitFailures.isEmpty()) {
+			response.put("postCommitFailures", postCommitFailures);
+		}
 
 		return response;
 	}
@@ -163,48 +136,68 @@ public class SchedulingService {
 	}
 
 	public Map<String, Object> processBatchUpgradeExcel(MultipartFile file) throws IOException {
-		List<BatchUpgradeRow> rows = new ArrayList<>();
-		List<String> validationErrors = new ArrayList<>();
+		Path excelFile = batchUpgradeExcelReader.spool(file);
+		try {
+			return processBatchUpgradeExcel(excelFile, new BatchUpgradeJob(file.getOriginalFilename()));
+		} finally {
+			Files.deleteIfExists(excelFile);
+		}
+	}
 
-		try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-			Sheet sheet = workbook.getSheetAt(0);
+	/**
+	 * Parses, validates, dedupes and starts the devices of a batch upgrade sheet, reporting progress on the job.
+	 */
+	public Map<String, Object> processBatchUpgradeExcel(Path file, BatchUpgradeJob job) throws IOException {
+		List<DeviceRequest> devices = new ArrayList<>();
+		List<String> validationErrors = new ArrayList<>();
+		// Sheet row of the first occurrence of each device; later rows for the same device are dropped
+		Map<String, Integer> deviceRows = new HashMap<>();
+		List<String> duplicateRows = new ArrayList<>();
 
+		// Rows are validated and converted as they stream in; the whole sheet is never held in memory
+		batchUpgradeExcelReader.read(file, (i, row) -> {
 			// Skip header row
-			for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-				Row row = sheet.getRow(i);
-				if (row == null || isRowEmpty(row)) continue;
+			if (i < 1 || isRowEmpty(row)) return;
 
-				BatchUpgradeRow batchRow = new BatchUpgradeRow();
-				try {
-					// Parse serial number
-					batchRow.setSerialNumber(parseSerialNumber(row.getCell(0)));
-					
-					// Parse uCPE hostname
-					batchRow.setUCpeHostName(getCellValueAsString(row.getCell(1)));
-
-					// Parse date - handles both string and date formatted cells
-					batchRow.setDate(parseDateCell(row.getCell(2)));
-
-					// Parse time - handles both string and date/time formatted cells
-					batchRow.setTime(parseTimeCell(row.getCell(3)));
-
-					// Parse DTAC and email
-					batchRow.setAssignedDtacAttuid(getCellValueAsString(row.getCell(4)));
-					batchRow.setCustomerEmail(getCellValueAsString(row.getCell(5)));
-
-					// Validate row
-					String error = validateBatchUpgradeRow(batchRow);
-					if (error != null) {
-						validationErrors.add("Row " + (i + 1) + ": " + error);
+			BatchUpgradeRow batchRow = new BatchUpgradeRow();
+			try {
+				// Parse serial number
+				batchRow.setSerialNumber(parseSerialNumber(row[0]));
+
+				// Parse uCPE hostname
+				batchRow.setUCpeHostName(getCellValueAsString(row[1]));
+
+				// Parse date - handles both string and date formatted cells
+				batchRow.setDate(parseDateCell(row[2]));
+
+				// Parse time - handles both string and date/time formatted cells
+				batchRow.setTime(parseTimeCell(row[3]));
+
+				// Parse DTAC and email
+				batchRow.setAssignedDtacAttuid(getCellValueAsString(row[4]));
+				batchRow.setCustomerEmail(getCellValueAsString(row[5]));
+
+				// Validate row
+				String error = validateBatchUpgradeRow(batchRow);
+				if (error != null) {
+					validationErrors.add("Row " + (i + 1) + ": " + error);
+				} else if (validationErrors.isEmpty()) {
+					// Once a row has failed nothing will be started, so stop collecting devices
+					DeviceRequest device = convertToDeviceRequest(batchRow);
+					job.rowAccepted();
+					Integer firstRow = deviceRows.putIfAbsent(device.getDeviceId(), i + 1);
+					if (firstRow != null) {
+						duplicateRows.add("Row " + (i + 1) + ": " + device.getDeviceId() + " already listed in row " + firstRow);
+						job.skipped(1);
 					} else {
-						rows.add(batchRow);
+						devices.add(device);
 					}
-				} catch (Exception e) {
-					log.error("Error parsing row {}: {}", i + 1, e.getMessage());
-					validationErrors.add("Row " + (i + 1) + ": Error parsing row - " + e.getMessage());
 				}
+			} catch (Exception e) {
+				log.error("Error parsing row {}: {}", i + 1, e.getMessage());
+				validationErrors.add("Row " + (i + 1) + ": Error parsing row - " + e.getMessage());
 			}
-		}
+		});
 		if (!validationErrors.isEmpty()) {
 			Map<String, Object> errorResponse = new HashMap<>();
 			errorResponse.put("message", "Validation errors found in Excel file");
@@ -213,9 +206,6 @@ public class SchedulingService {
 			return errorResponse;
 		}
 
-		// Convert to DeviceRequest
-		List<DeviceRequest> devices = rows.stream().map(this::convertToDeviceRequest).toList();
-		
 		// Get device IDs for lookup
 		List<String> deviceIds = devices.stream().map(DeviceRequest::getDeviceId).distinct().toList();
 
@@ -267,19 +257,35 @@ public class SchedulingService {
 			}
 		}
 
+		// Everything except the new devices is settled before any process starts
+		job.skipped(duplicatesSkipped);
+		job.awaitingConfirmation(overwriteData.getOverwrites().size());
+		job.failed(failedDevices.size());
+
 		// Process new devices immediately
 		List<String> newDevicesProcessed = new ArrayList<>();
 		List<String> failedProcesses = new ArrayList<>();
+		List<String> postCommitFailures = new ArrayList<>();
 		if (!newDevicesToProcess.isEmpty()) {
-			Map<String, Object> result = startBatchUpgrade(newDevicesToProcess);
+			Map<String, Object> result = startBatchUpgrade(newDevicesToProcess,
+					process -> {
+						if (BatchUpgradeStarter.isFailed(process)) {
+							job.failed(1);
+						} else {
+							job.succeeded(1);
+						}
+					});
 			@SuppressWarnings("unchecked")
 			List<String> processes = (List<String>) result.get("processes");
 			if (processes != null) {
 				for (String process : processes) {
-					if (process.contains("FAILED")) {
+					if (BatchUpgradeStarter.isFailed(process)) {
 						failedProcesses.add(process);
 					} else {
 						newDevicesProcessed.add(process.split(": ")[0]);
+						if (process.contains(BatchUpgradeStarter.POST_COMMIT_FAILED)) {
+							postCommitFailures.add(process);
+						}
 					}
 				}
 			}
@@ -290,11 +296,12 @@ public class SchedulingService {
 		response.setTotalDevices(devices.size());
 		response.setNewDevicesProcessed(newDevicesProcessed);
 		response.setDuplicatesSkipped(duplicatesSkipped);
+		response.setDuplicateRows(duplicateRows);
 		response.setFailedDevices(failedDevices);
 
 		if (!overwriteData.getOverwrites().isEmpty()) {
 			// Store overwrite data
-			overwriteStore.put(overwriteData.getId(), overwriteData);
+			overwriteSessionStore.put(overwriteData);
 			response.setMessage("Batch upgrade processed with overwrites pending confirmation");
 			response.setOverwriteId(overwriteData.getId());
 			response.setOverwrites(overwriteData.getOverwrites());
@@ -312,10 +319,18 @@ public class SchedulingService {
 		result.put("failedDevices", response.getFailedDevices());
 		result.put("totalDevices", response.getTotalDevices());
 
+		// Rows dropped because their device was already listed earlier in the sheet
+		if (!duplicateRows.isEmpty()) {
+			result.put("duplicateRows", duplicateRows);
+		}
+
 		// Include failed processes if any
 		if (!failedProcesses.isEmpty()) {
 			result.put("failedProcesses", failedProcesses);
 		}
+		if (!postCommitFailures.isEmpty()) {
+			result.put("postCommitFailures", postCommitFailures);
+		}
 
 		// Only include overwrite fields if there are overwrites pending
 		if (response.getOverwriteId() != null) {
@@ -332,8 +347,8 @@ public class SchedulingService {
 		Map<String, Object> response = new HashMap<>();
 
 		try {
-			// Retrieve overwrite data
-			OverwriteData overwriteData = overwriteStore.get(overwriteId);
+			// Claim the overwrite data, so that a confirmation sent twice (or to two nodes) is only applied once
+			OverwriteData overwriteData = overwriteSessionStore.claim(overwriteId).orElse(null);
 			if (overwriteData == null) {
 				response.put("message", "Overwrite session not found or expired");
 				response.put("status", HttpStatus.NOT_FOUND);
@@ -341,8 +356,7 @@ public class SchedulingService {
 			}
 
 			// Check if expired
-			if (overwriteData.getCreatedAt().plusMinutes(OVERWRITE_EXPIRY_MINUTES).isBefore(ZonedDateTime.now())) {
-				overwriteStore.remove(overwriteId); // Clean up expired data
+			if (overwriteData.getCreatedAt().plusMinutes(overwriteExpiryMinutes).isBefore(ZonedDateTime.now())) {
 				response.put("message", "Overwrite session has expired");
 				response.put("status", HttpStatus.GONE);
 				return response;
@@ -352,69 +366,27 @@ public class SchedulingService {
 			List<String> updatedProcesses = new ArrayList<>();
 			List<String> failedUpdates = new ArrayList<>();
 
-			for (OverwriteDevice overwrite : overwriteData.getOverwrites()) {
+			// Each chunk is applied in one transaction; a failed chunk falls back to one device at a time
+			TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+			List<OverwriteDevice> overwrites = overwriteData.getOverwrites();
+			for (int from = 0; from < overwrites.size(); from += confirmChunkSize) {
+				List<OverwriteDevice> chunk = overwrites.subList(from, Math.min(from + confirmChunkSize, overwrites.size()));
+				List<String> chunkUpdated = new ArrayList<>();
+				List<String> chunkFailed = new ArrayList<>();
 				try {
-					// Find existing workflow
-					List<WorkflowExecution> existingWorkflows = workflowExecutionRepository.findByDeviceIds(
-						List.of(overwrite.getDeviceId()));
-
-					if (existingWorkflows.isEmpty()) {
-						failedUpdates.add(overwrite.getDeviceId() + ": Workflow not found");
-						continue;
-					}
-
-					WorkflowExecution existingWorkflow = existingWorkflows.get(0);
-
-					// Update workflow with new values
-					if (overwrite.getChanges().contains("scheduledTime") && overwrite.getNewValues().getScheduledTime() != null) {
-						existingWorkflow.setScheduledTime(overwrite.getNewValues().getScheduledTime());
-					}
-					if (overwrite.getChanges().contains("assignedDtac")) {
-						existingWorkflow.setAssignedDtac(overwrite.getNewValues().getAssignedDtac());
-					}
-					if (overwrite.getChanges().contains("customerEmail")) {
-						existingWorkflow.setLocalCustomerEmailContact(overwrite.getNewValues().getCustomerEmail());
-					}
-
-					// Update process variables if process is still running
-					try {
-						Map<String, Object> variables = new HashMap<>();
-						if (overwrite.getChanges().contains("scheduledTime") && overwrite.getNewValues().getScheduledTime() != null) {
-							// Convert to Instant for Flowable timer compatibility
-							variables.put("scheduledUpgradeDateTime", overwrite.getNewValues().getScheduledTime().toInstant());
-							ZonedDateTime preUpgradeTime = overwrite.getNewValues().getScheduledTime().minusDays(7);
-							variables.put("preUpgradeDateTime", preUpgradeTime.toInstant());
-						}
-						if (overwrite.getChanges().contains("assignedDtac")) {
-							variables.put("assignedDTAC", overwrite.getNewValues().getAssignedDtac());
-						}
-						if (overwrite.getChanges().contains("customerEmail")) {
-							variables.put("customerEmail", overwrite.getNewValues().getCustomerEmail());
-						}
-
-						if (!variables.isEmpty()) {
-							runtimeService.setVariables(existingWorkflow.getFlowInstanceId(), variables);
-						}
-					} catch (Exception e) {
-						log.warn("Could not update runtime variables for process {}: {}", existingWorkflow.getFlowInstanceId(), e.getMessage());
-						// Continue with database update even if runtime update fails
-					}
-
-					// Save updated workflow
-					existingWorkflow.setStatus("OVERWRITTEN");
-					workflowExecutionRepository.save(existingWorkflow);
-
-					updatedProcesses.add(overwrite.getDeviceId() + ": " + existingWorkflow.getFlowInstanceId());
-
+					transactionTemplate.executeWithoutResult(status -> confirmOverwriteChunk(chunk, chunkUpdated, chunkFailed));
 				} catch (Exception e) {
-					failedUpdates.add(overwrite.getDeviceId() + ": " + e.getMessage());
-					log.error("Failed to update workflow for device {}: {}", overwrite.getDeviceId(), e.getMessage());
+					log.warn("Overwrite chunk of {} devices rolled back ({}), retrying devices individually", chunk.size(), e.getMessage());
+					chunkUpdated.clear();
+					chunkFailed.clear();
+					for (OverwriteDevice overwrite : chunk) {
+						confirmOverwrite(overwrite, chunkUpdated, chunkFailed);
+					}
 				}
+				updatedProcesses.addAll(chunkUpdated);
+				failedUpdates.addAll(chunkFailed);
 			}
 
-			// Remove processed overwrite data
-			overwriteStore.remove(overwriteId);
-
 			response.put("message", "Batch upgrade overwrites confirmed and processed");
 			response.put("updatedProcesses", updatedProcesses);
 			response.put("failedUpdates", failedUpdates);
@@ -434,41 +406,162 @@ public class SchedulingService {
 		return response;
 	}
 
-	public com.prodapt.flowable.entity.Task assignWorkflowToTask(ZonedDateTime scheduledTime, String assignedDtac, WorkflowExecution workflow) {
-		// Find employee
-		com.prodapt.flowable.entity.Employee employee = employeeRepository.findByAttUid(assignedDtac)
-			.orElseThrow(() -> new RuntimeException("Employee not found: " + assignedDtac));
-
-		// Check if task already exists for this employee and time
-		Optional<com.prodapt.flowable.entity.Task> existingTaskOpt = taskRepository.findByAssignedEmployeeAttUidAndStartTime(assignedDtac, scheduledTime);
-
-		if (existingTaskOpt.isPresent()) {
-			// Append to existing task
-			com.prodapt.flowable.entity.Task existingTask = existingTaskOpt.get();
-			existingTask.getWorkflows().add(workflow);
-			existingTask.setWorkflowCount(existingTask.getWorkflowCount() + 1);
-			workflow.setTask(existingTask);
-			return taskRepository.save(existingTask);
-		} else {
-			// Create new task
-			com.prodapt.flowable.entity.Task newTask = new com.prodapt.flowable.entity.Task();
-			newTask.setId(UUID.randomUUID().toString());
-			newTask.setStartTime(scheduledTime);
-			newTask.setEndTime(scheduledTime.plusHours(1));
-			newTask.setAssignedEmployee(employee);
-			newTask.setWorkflows(new ArrayList<>(List.of(workflow)));
-			newTask.setWorkflowCount(1);
-			workflow.setTask(newTask);
-			return taskRepository.save(newTask);
+	/**
+	 * Applies a chunk of overwrites inside the caller's transaction: one query loads the chunk's workflows,
+	 * one query finds which of their processes are still running, and the updated rows are saved together
+	 * so they flush as a single JDBC batch. Any exception rolls the whole chunk back.
+	 */
+	private void confirmOverwriteChunk(List<OverwriteDevice> chunk, List<String> updatedProcesses, List<String> failedUpdates) {
+		List<String> deviceIds = chunk.stream().map(OverwriteDevice::getDeviceId).distinct().toList();
+		Map<String, WorkflowExecution> workflowsByDevice = new HashMap<>();
+		for (WorkflowExecution workflow : workflowExecutionRepository.findByDeviceIds(deviceIds)) {
+			workflowsByDevice.putIfAbsent(workflow.getDeviceId(), workflow);
+		}
+
+		Set<String> processInstanceIds = workflowsByDevice.values().stream()
+			.map(WorkflowExecution::getFlowInstanceId)
+			.collect(Collectors.toSet());
+		Set<String> runningProcessIds = processInstanceIds.isEmpty() ? Set.of()
+			: runtimeService.createProcessInstanceQuery().processInstanceIds(processInstanceIds).list().stream()
+				.map(ProcessInstance::getId)
+				.collect(Collectors.toSet());
+
+		List<WorkflowExecution> updated = new ArrayList<>();
+		for (OverwriteDevice overwrite : chunk) {
+			WorkflowExecution existingWorkflow = workflowsByDevice.get(overwrite.getDeviceId());
+			if (existingWorkflow == null) {
+				failedUpdates.add(overwrite.getDeviceId() + ": Workflow not found");
+				continue;
+			}
+
+			applyOverwriteValues(overwrite, existingWorkflow);
+			Map<String, Object> variables = overwriteVariables(overwrite);
+			if (!variables.isEmpty() && runningProcessIds.contains(existingWorkflow.getFlowInstanceId())) {
+				runtimeService.setVariables(existingWorkflow.getFlowInstanceId(), variables);
+			}
+			existingWorkflow.setStatus("OVERWRITTEN");
+			updated.add(existingWorkflow);
+			updatedProcesses.add(overwrite.getDeviceId() + ": " + existingWorkflow.getFlowInstanceId());
+		}
+		workflowExecutionRepository.saveAll(updated);
+	}
+
+	/**
+	 * Applies a single overwrite without a surrounding transaction, so a failure only affects this device.
+	 */
+	private void confirmOverwrite(OverwriteDevice overwrite, List<String> updatedProcesses, List<String> failedUpdates) {
+		try {
+			// Find existing workflow
+			List<WorkflowExecution> existingWorkflows = workflowExecutionRepository.findByDeviceIds(
+				List.of(overwrite.getDeviceId()));
+
+			if (existingWorkflows.isEmpty()) {
+				failedUpdates.add(overwrite.getDeviceId() + ": Workflow not found");
+				return;
+			}
+
+			WorkflowExecution existingWorkflow = existingWorkflows.get(0);
+
+			// Update workflow with new values
+			applyOverwriteValues(overwrite, existingWorkflow);
+
+			// Update process variables if process is still running
+			try {
+				Map<String, Object> variables = overwriteVariables(overwrite);
+				if (!variables.isEmpty()) {
+					runtimeService.setVariables(existingWorkflow.getFlowInstanceId(), variables);
+				}
+			} catch (Exception e) {
+				log.warn("Could not update runtime variables for process {}: {}", existingWorkflow.getFlowInstanceId(), e.getMessage());
+				// Continue with database update even if runtime update fails
+			}
+
+			// Save updated workflow
+			existingWorkflow.setStatus("OVERWRITTEN");
+			workflowExecutionRepository.save(existingWorkflow);
+
+			updatedProcesses.add(overwrite.getDeviceId() + ": " + existingWorkflow.getFlowInstanceId());
+
+		} catch (Exception e) {
+			failedUpdates.add(overwrite.getDeviceId() + ": " + e.getMessage());
+			log.error("Failed to update workflow for device {}: {}", overwrite.getDeviceId(), e.getMessage());
 		}
 	}
 
+	private void applyOverwriteValues(OverwriteDevice overwrite, WorkflowExecution workflow) {
+		if (overwrite.getChanges().contains("scheduledTime") && overwrite.getNewValues().getScheduledTime() != null) {
+			workflow.setScheduledTime(overwrite.getNewValues().getScheduledTime());
+		}
+		if (overwrite.getChanges().contains("assignedDtac")) {
+			workflow.setAssignedDtac(overwrite.getNewValues().getAssignedDtac());
+		}
+		if (overwrite.getChanges().contains("customerEmail")) {
+			workflow.setLocalCustomerEmailContact(overwrite.getNewValues().getCustomerEmail());
+		}
+	}
+
+	private Map<String, Object> overwriteVariables(OverwriteDevice overwrite) {
+		Map<String, Object> variables = new HashMap<>();
+		if (overwrite.getChanges().contains("scheduledTime") && overwrite.getNewValues().getScheduledTime() != null) {
+			// Convert to Instant for Flowable timer compatibility
+			variables.put("scheduledUpgradeDateTime", overwrite.getNewValues().getScheduledTime().toInstant());
+			ZonedDateTime preUpgradeTime = overwrite.getNewValues().getScheduledTime().minusDays(7);
+			variables.put("preUpgradeDateTime", preUpgradeTime.toInstant());
+		}
+		if (overwrite.getChanges().contains("assignedDtac")) {
+			variables.put("assignedDTAC", overwrite.getNewValues().getAssignedDtac());
+		}
+		if (overwrite.getChanges().contains("customerEmail")) {
+			variables.put("customerEmail", overwrite.getNewValues().getCustomerEmail());
+		}
+		return variables;
+	}
+
+	/**
+	 * Adds the workflow to the DTAC's task for the slot, creating the task if there is none, in a single
+	 * INSERT ... ON CONFLICT on (assigned_user_id, start_time) so that concurrent ScheduleDelegate jobs for
+	 * the same DTAC and slot end up in the same task. Only a reference to the task is set on the workflow;
+	 * its task_id is written when the caller saves it.
+	 *
+	 * @return the id of the task
+	 * @throws IllegalArgumentException when no DTAC is given, as a NULL owner never conflicts and would add a
+	 *         new ownerless task on every call
+	 */
+	public String assignWorkflowToTask(ZonedDateTime scheduledTime, String assignedDtac, WorkflowExecution workflow) {
+		if (assignedDtac == null || assignedDtac.isBlank()) {
+			throw new IllegalArgumentException("No DTAC assigned to workflow " + workflow.getFlowInstanceId());
+		}
+		// Checked up front: a failed insert (fk_task_assigned_user) would abort the caller's transaction in PostgreSQL
+		if (!employeeRepository.existsById(assignedDtac)) {
+			throw new RuntimeException("Employee not found: " + assignedDtac);
+		}
+		String taskId = taskRepository.upsertSlot(UUID.randomUUID().toString(), assignedDtac, scheduledTime, scheduledTime.plusHours(1));
+		workflow.setTask(taskRepository.getReferenceById(taskId));
+		return taskId;
+	}
+
+	/**
+	 * Takes the workflow out of its task and deletes the task when it was the last workflow in it, without
+	 * loading the task or its workflows.
+	 */
+	public void releaseWorkflowFromTask(WorkflowExecution workflow) {
+		if (workflow.getTask() == null) {
+			return;
+		}
+		String taskId = workflow.getTask().getId();
+		workflow.setTask(null);
+		// The reference has to be gone before the task can be deleted
+		workflowExecutionRepository.clearTask(workflow.getFlowInstanceId());
+		taskRepository.decrementWorkflowCount(taskId);
+		taskRepository.deleteIfEmpty(taskId);
+	}
+
 	/**
 	 * Check if a row is completely empty
 	 */
-	private boolean isRowEmpty(Row row) {
-		for (int i = 0; i < 6; i++) {
-			Cell cell = row.getCell(i);
+	private boolean isRowEmpty(SheetCell[] row) {
+		for (int i = 0; i < BatchUpgradeExcelReader.COLUMNS; i++) {
+			SheetCell cell = row[i];
 			if (cell != null && cell.getCellType() != org.apache.poi.ss.usermodel.CellType.BLANK 
 				&& !getCellValueAsString(cell).isEmpty()) {
 				return false;
@@ -480,7 +573,7 @@ public class SchedulingService {
 	/**
 	 * Parse serial number from cell, handling both numeric and string formats
 	 */
-	private Integer parseSerialNumber(Cell cell) {
+	private Integer parseSerialNumber(SheetCell cell) {
 		if (cell == null) {
 			throw new IllegalArgumentException("Serial Number is required");
 		}
@@ -500,13 +593,13 @@ public class SchedulingService {
 	/**
 	 * Parse date cell, handling both string (DD-MM-YYYY) and date formatted cells
 	 */
-	private String parseDateCell(Cell cell) {
+	private String parseDateCell(SheetCell cell) {
 		if (cell == null) {
 			return "";
 		}
 
 		// Handle date-formatted cells
-		if (cell.getCellType() == org.apache.poi.ss.usermodel.CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+		if (cell.isDateFormatted()) {
 			java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd-MM-yyyy");
 			return sdf.format(cell.getDateCellValue());
 		}
@@ -527,13 +620,13 @@ public class SchedulingService {
 	/**
 	 * Parse time cell, handling both string (HH:mm) and date/time formatted cells
 	 */
-	private String parseTimeCell(Cell cell) {
+	private String parseTimeCell(SheetCell cell) {
 		if (cell == null) {
 			return "";
 		}
 
 		// Handle date/time formatted cells
-		if (cell.getCellType() == org.apache.poi.ss.usermodel.CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+		if (cell.isDateFormatted()) {
 			java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("HH:mm");
 			return sdf.format(cell.getDateCellValue());
 		}
@@ -555,7 +648,7 @@ public class SchedulingService {
 	/**
 	 * Extract cell value as string, handling different cell types
 	 */
-	private String getCellValueAsString(Cell cell) {
+	private String getCellValueAsString(SheetCell cell) {
 		if (cell == null) {
 			return "";
 		}
@@ -662,6 +755,7 @@ public class SchedulingService {
 	}
 
 	@Data
+	@NoArgsConstructor
 	public static class OverwriteDevice {
 		private String deviceId;
 		private DeviceValues oldValues;
@@ -747,6 +841,7 @@ public class SchedulingService {
 		private List<OverwriteDevice> overwrites;
 		private List<String> newDevicesProcessed;
 		private Integer duplicatesSkipped;
+		private List<String> duplicateRows;
 		private List<FailedDevice> failedDevices;
 		private Integer totalDevices;
 	}
@@ -0,0 +1,70 @@
+-- Application tables as Hibernate created them with ddl-auto=create; IF NOT EXISTS so a database created
+-- that way is taken over as is (see spring.flyway.baseline-on-migrate)
+
+CREATE TABLE IF NOT EXISTS employee (
+    att_uid varchar(255) NOT NULL,
+    email varchar(255),
+    role varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    is_active boolean NOT NULL,
+    CONSTRAINT employee_pkey PRIMARY KEY (att_uid)
+);
+
+CREATE TABLE IF NOT EXISTS task (
+    id varchar(255) NOT NULL,
+    start_time timestamp(6) with time zone,
+    end_time timestamp(6) with time zone,
+    assigned_user_id varchar(255),
+    workflow_count integer,
+    CONSTRAINT task_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_task_assigned_user FOREIGN KEY (assigned_user_id) REFERENCES employee (att_uid)
+);
+
+CREATE TABLE IF NOT EXISTS workflow_execution (
+    flow_instance_id varchar(255) NOT NULL,
+    device_id varchar(255),
+    step varchar(255),
+    message varchar(255),
+    assigned_dtac varchar(255),
+    created_at timestamp(6) with time zone,
+    scheduled_time timestamp(6) with time zone,
+    device_compatibility_time timestamp(6) with time zone,
+    local_customer_email_contact varchar(255),
+    local_customer_mobile_contact varchar(255),
+    issuer varchar(255),
+    process_name varchar(255),
+    process_flow_id varchar(255),
+    task_id varchar(255),
+    completed boolean NOT NULL,
+    completed_time timestamp(6) with time zone,
+    last_updated timestamp(6) with time zone,
+    re_schedule_count integer,
+    status varchar(255),
+    CONSTRAINT workflow_execution_pkey PRIMARY KEY (flow_instance_id),
+    CONSTRAINT fk_workflow_execution_task FOREIGN KEY (task_id) REFERENCES task (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_scheduled_time ON workflow_execution (scheduled_time);
+
+CREATE TABLE IF NOT EXISTS overwrite_session (
+    id varchar(255) NOT NULL,
+    created_at timestamp(6) with time zone,
+    expires_at timestamp(6) with time zone,
+    payload bytea,
+    CONSTRAINT overwrite_session_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_overwrite_session_expires_at ON overwrite_session (expires_at);
+
+CREATE TABLE IF NOT EXISTS reminder_dispatch (
+    id varchar(255) NOT NULL,
+    device_id varchar(255),
+    slot varchar(255),
+    scheduled_time timestamp(6) with time zone,
+    flow_instance_id varchar(255),
+    dispatched_at timestamp(6) with time zone,
+    CONSTRAINT reminder_dispatch_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reminder_dispatch_device_slot ON reminder_dispatch (device_id, slot, scheduled_time);
@@ -0,0 +1,42 @@
+-- Indexes for the access paths of the workflow listing (WorkflowExecutionSpecification.withFilters and its
+-- cursor mode), the reminder sweeper and DTAC slot lookups. WorkflowExecutionQueryPlanTest checks that the
+-- planner uses them.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- deviceIds filter, overwrite lookups (findByDeviceIds)
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_device_id ON workflow_execution (device_id);
+
+-- Default listing order, createdAt range filters; flow_instance_id is the cursor tie-breaker
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_created_at ON workflow_execution (created_at DESC, flow_instance_id DESC);
+
+-- The grid of open upgrades (completed = false) is a small part of the table once history builds up
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_open_created_at ON workflow_execution (created_at DESC, flow_instance_id DESC)
+    WHERE completed = false;
+
+-- scheduledTime range filters and sorts; replaces the single-column index of V1
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_scheduled ON workflow_execution (scheduled_time, flow_instance_id);
+DROP INDEX IF EXISTS idx_workflow_execution_scheduled_time;
+
+-- Reminder sweeper: open upgrades by scheduled time
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_open_scheduled ON workflow_execution (scheduled_time, flow_instance_id)
+    WHERE completed = false;
+
+-- processNames / processFlowIds filters, newest first
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_process_name ON workflow_execution (process_name, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_process_flow_id ON workflow_execution (process_flow_id, created_at DESC);
+
+-- emailContact filter: lower(local_customer_email_contact) LIKE '%x%'
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_email_trgm ON workflow_execution
+    USING gin (lower(local_customer_email_contact) gin_trgm_ops);
+
+-- Task.workflows
+CREATE INDEX IF NOT EXISTS idx_workflow_execution_task_id ON workflow_execution (task_id);
+
+-- TaskRepository lookups by DTAC and slot or slot range
+CREATE INDEX IF NOT EXISTS idx_task_assigned_user_start_time ON task (assigned_user_id, start_time);
+-- EmployeeRepository.findActiveEmployeesWithTasksInDateRange: tasks of all DTACs in a date range
+CREATE INDEX IF NOT EXISTS idx_task_start_time ON task (start_time);
+
+-- Active DTACs
+CREATE INDEX IF NOT EXISTS idx_employee_active ON employee (att_uid) WHERE is_active;
@@ -0,0 +1,25 @@
+-- One task per DTAC and slot: SchedulingService.assignWorkflowToTask upserts on (assigned_user_id, start_time).
+-- Slots duplicated by earlier concurrent assignments are merged into their oldest task id first.
+
+UPDATE workflow_execution w
+SET task_id = keep.id
+FROM task t
+JOIN (SELECT assigned_user_id, start_time, min(id) AS id
+      FROM task
+      WHERE assigned_user_id IS NOT NULL
+      GROUP BY assigned_user_id, start_time
+      HAVING count(*) > 1) keep
+  ON keep.assigned_user_id = t.assigned_user_id AND keep.start_time = t.start_time
+WHERE w.task_id = t.id AND t.id <> keep.id;
+
+DELETE FROM task t
+USING task keep
+WHERE keep.assigned_user_id = t.assigned_user_id AND keep.start_time = t.start_time AND keep.id < t.id;
+
+UPDATE task t
+SET workflow_count = (SELECT count(*) FROM workflow_execution w WHERE w.task_id = t.id)
+WHERE t.workflow_count IS DISTINCT FROM (SELECT count(*) FROM workflow_execution w WHERE w.task_id = t.id);
+
+-- The constraint's index also serves the slot lookups of idx_task_assigned_user_start_time
+ALTER TABLE task ADD CONSTRAINT uk_task_assigned_user_start_time UNIQUE (assigned_user_id, start_time);
+DROP INDEX IF EXISTS idx_task_assigned_user_start_time;
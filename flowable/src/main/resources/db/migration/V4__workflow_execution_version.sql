@@ -0,0 +1,2 @@
+-- Optimistic locking of WorkflowExecution (@Version)
+ALTER TABLE workflow_execution ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,102 @@
+package com.prodapt.flowable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.prodapt.flowable.config.JobExecutorProperties;
+import com.prodapt.flowable.config.JobExecutorProperties.Lane;
+import com.prodapt.flowable.config.NfxClientProperties;
+import com.prodapt.flowable.service.jobs.JobLanes;
+import com.prodapt.flowable.service.jobs.PrioritizedJobExecutor;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Jobs per second of the Flowable job executor when every job blocks on an NFX call that takes 2s, as the
+ * device steps did before their calls moved off the executor threads. "platform" is the 8-thread pool,
+ * "virtual" runs each job on a virtual thread, limited by the default max-concurrency for a 60-connection
+ * database pool and the default NFX bulkhead (50). Pinned virtual threads are logged by the executor.
+ *
+ * Run with: mvn test -Dtest=AsyncJobExecutorBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AsyncJobExecutorBenchmark {
+
+	private static final int JOBS = 200;
+	private static final int NFX_LATENCY_MS = 2000;
+	private static final int DB_POOL_SIZE = 60;
+
+	@Test
+	void jobsPerSecond() throws Exception {
+		HttpServer nfx = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+		nfx.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		nfx.createContext("/", exchange -> {
+			try {
+				Thread.sleep(NFX_LATENCY_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "{\"status\":\"SUCCESS\"}".getBytes();
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		nfx.start();
+		String url = "http://localhost:" + nfx.getAddress().getPort() + "/stage_upgrade_image";
+		try (CloseableHttpClient client = HttpClients.custom()
+				.setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+						.setMaxConnTotal(JOBS).setMaxConnPerRoute(JOBS).build())
+				.build()) {
+			measure("platform", false, 8, client, url);
+			measure("virtual", true, JOBS, client, url);
+		} finally {
+			nfx.stop(0);
+		}
+	}
+
+	private void measure(String name, boolean virtualThreads, int poolSize, CloseableHttpClient client, String url)
+			throws InterruptedException {
+		JobExecutorProperties properties = new JobExecutorProperties();
+		Lane lane = new Lane();
+		lane.setPoolSize(poolSize);
+		lane.setQueueCapacity(JOBS);
+		properties.getLanes().put(properties.getDefaultLane(), lane);
+		properties.getVirtualThreads().setEnabled(virtualThreads);
+		PrioritizedJobExecutor executor = new PrioritizedJobExecutor(new JobLanes(properties), properties,
+				new NfxClientProperties(), DB_POOL_SIZE, new SimpleMeterRegistry());
+		try {
+			CountDownLatch done = new CountDownLatch(JOBS);
+			AtomicInteger failed = new AtomicInteger();
+			long start = System.nanoTime();
+			for (int i = 0; i < JOBS; i++) {
+				executor.execute(() -> {
+					try {
+						client.execute(new HttpGet(url), response -> EntityUtils.toString(response.getEntity()));
+					} catch (IOException e) {
+						failed.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				});
+			}
+			done.await(10, TimeUnit.MINUTES);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%s: %d jobs in %.2fs, %.1f jobs/s, %d failed%n", name, JOBS, seconds, JOBS / seconds, failed.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.prodapt.flowable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flowable.engine.HistoryService;
+import org.flowable.engine.ManagementService;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.history.HistoricActivityInstance;
+import org.flowable.job.api.Job;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.prodapt.flowable.service.ElasticsearchService;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A verification whose NFX call fails ends through the compatibilityCheckFailed BPMN error raised in its
+ * trigger: its boundary event records the failure, the other verification still completes, and the aggregator
+ * routes the subprocess to "Compatibility Check Failed". The process in bpmn/compatibilityCheckFailure.bpmn20.xml
+ * has the structure of UpgradeFlow's compatibility check subprocesses; NFX answers BIOS with 500 and NIC with 200.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest(properties = { "flowable.async-executor-activate=false", "reminder-sweeper.enabled=false",
+		"nfx.async.max-attempts=1" })
+@Testcontainers(disabledWithoutDocker = true)
+class CompatibilityCheckFailureTest {
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final HttpServer nfx = startNfx();
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("nfx.service.base.mock.url", () -> "http://localhost:" + nfx.getAddress().getPort());
+	}
+
+	@MockitoBean
+	private ElasticsearchService elasticsearchService;
+
+	@Autowired
+	private RepositoryService repositoryService;
+
+	@Autowired
+	private RuntimeService runtimeService;
+
+	@Autowired
+	private ManagementService managementService;
+
+	@Autowired
+	private HistoryService historyService;
+
+	@BeforeEach
+	void deploy() {
+		if (repositoryService.createProcessDefinitionQuery().processDefinitionKey("CompatibilityCheckFailure").count() == 0) {
+			repositoryService.createDeployment().addClasspathResource("bpmn/compatibilityCheckFailure.bpmn20.xml").deploy();
+		}
+	}
+
+	@AfterAll
+	static void stopNfx() {
+		nfx.stop(0);
+	}
+
+	@Test
+	void failedVerificationEndsTheCheckThroughItsErrorBoundary() throws InterruptedException {
+		String processInstanceId = runtimeService.startProcessInstanceByKey("CompatibilityCheckFailure",
+				Map.of("deviceId", "device-" + UUID.randomUUID(), "step", "device-compatibility-check")).getId();
+
+		runJobsUntilEnded(processInstanceId);
+
+		List<String> activities = historyService.createHistoricActivityInstanceQuery().processInstanceId(processInstanceId)
+				.list().stream().map(HistoricActivityInstance::getActivityId).toList();
+		assertThat(activities).contains("verifyBios", "biosCheckFailed", "verifyNic", "aggregate", "compatibilityCheckFailed", "failed");
+		assertThat(activities).doesNotContain("nicCheckFailed", "passed");
+	}
+
+	/**
+	 * Runs the process's jobs (the async verifications, then the triggers created once NFX answered) until it ends.
+	 */
+	private void runJobsUntilEnded(String processInstanceId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (runtimeService.createProcessInstanceQuery().processInstanceId(processInstanceId).count() > 0) {
+			assertThat(System.currentTimeMillis()).as("process still running").isLessThan(deadline);
+			for (Job job : managementService.createJobQuery().processInstanceId(processInstanceId).list()) {
+				managementService.executeJob(job.getId());
+			}
+			Thread.sleep(50);
+		}
+	}
+
+	private static HttpServer startNfx() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/", exchange -> {
+				boolean fail = exchange.getRequestURI().getPath().equals("/verify_and_upgrade_bios");
+				byte[] body = (fail ? "{\"status\":\"FAILED\"}" : "{\"status\":\"SUCCESS\"}").getBytes();
+				exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+				exchange.getResponseBody().write(body);
+				exchange.close();
+			});
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.prodapt.flowable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flowable.common.engine.impl.Page;
+import org.flowable.engine.ManagementService;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.job.api.Job;
+import org.flowable.job.service.JobServiceConfiguration;
+import org.flowable.job.service.impl.persistence.entity.JobEntity;
+import org.flowable.spring.SpringProcessEngineConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.prodapt.flowable.service.ElasticsearchService;
+import com.prodapt.flowable.service.jobs.PriorityJobDataManager;
+
+/**
+ * The engine acquires executable jobs through {@link PriorityJobDataManager}, installed by the configurator in
+ * FlowUtils in place of Flowable's own job data and entity managers: lane by lane, default lane first, and
+ * within a lane by band, then oldest first, whatever order the jobs were created in.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest(properties = { "flowable.async-executor-activate=false", "reminder-sweeper.enabled=false" })
+@Testcontainers(disabledWithoutDocker = true)
+class JobAcquisitionOrderTest {
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@MockitoBean
+	private ElasticsearchService elasticsearchService;
+
+	@Autowired
+	private SpringProcessEngineConfiguration processEngineConfiguration;
+
+	@Autowired
+	private RepositoryService repositoryService;
+
+	@Autowired
+	private RuntimeService runtimeService;
+
+	@Autowired
+	private ManagementService managementService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${flowable.database-schema}")
+	private String flowableSchema;
+
+	@Test
+	void jobsAreAcquiredByLaneThenBandThenAge() {
+		JobServiceConfiguration jobServiceConfiguration = processEngineConfiguration.getJobServiceConfiguration();
+		assertThat(jobServiceConfiguration.getJobDataManager()).isInstanceOf(PriorityJobDataManager.class);
+
+		repositoryService.createDeployment().addClasspathResource("bpmn/jobBands.bpmn20.xml").deploy();
+		// Category of each job, oldest first; a bare band belongs to the default lane (internal)
+		Map<String, String> categories = new LinkedHashMap<>();
+		for (String category : List.of("internal.background", "nfx.normal", "internal.normal", "background",
+				"nfx.critical", "internal.critical", "nfx.background")) {
+			String processInstanceId = runtimeService.startProcessInstanceByKey("JobBands").getId();
+			Job job = managementService.createJobQuery().processInstanceId(processInstanceId).singleResult();
+			categories.put(job.getId(), category);
+		}
+		Instant createdAt = Instant.parse("2030-01-07T10:00:00Z");
+		for (Map.Entry<String, String> job : categories.entrySet()) {
+			jdbcTemplate.update("UPDATE " + flowableSchema + ".act_ru_job SET category_ = ?, create_time_ = ? WHERE id_ = ?",
+					job.getValue(), Timestamp.from(createdAt), job.getKey());
+			createdAt = createdAt.plusSeconds(1);
+		}
+
+		// Acquisition itself, as the async executor's acquire command calls it
+		List<JobEntity> acquired = managementService.executeCommand(commandContext ->
+				jobServiceConfiguration.getJobEntityManager().findJobsToExecute(null, new Page(0, 100)));
+
+		assertThat(acquired).extracting(job -> categories.get(job.getId())).containsExactly(
+				"internal.critical", "internal.normal", "internal.background", "background",
+				"nfx.critical", "nfx.normal", "nfx.background");
+	}
+}
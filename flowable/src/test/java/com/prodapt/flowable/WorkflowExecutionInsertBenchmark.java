@@ -0,0 +1,101 @@
+package com.prodapt.flowable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.prodapt.flowable.entity.WorkflowExecution;
+import com.prodapt.flowable.repository.WorkflowExecutionRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts per second for WorkflowExecution rows written the way a 10k-device batch start writes them:
+ * one transaction per chunk of 50. "per-row" reproduces the old path (merge + flush for every row),
+ * "batched" is the saveAll path used by BatchUpgradeStarter.
+ *
+ * Runs against its own PostgreSQL container (the table is emptied between rounds), so it needs Docker.
+ * Run with: mvn test -Dtest=WorkflowExecutionInsertBenchmark -Dbenchmark=true
+ */
+@SpringBootTest(properties = "flowable.async-executor-activate=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class WorkflowExecutionInsertBenchmark {
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	private static final int DEVICES = 10_000;
+	private static final int CHUNK_SIZE = 50;
+	private static final int ROUNDS = 3;
+
+	@Autowired
+	private WorkflowExecutionRepository workflowExecutionRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void insertsPerSecond() {
+		measure("per-row", rows -> rows.forEach(row -> {
+			row.setNewEntity(false);
+			workflowExecutionRepository.saveAndFlush(row);
+		}));
+		measure("batched", workflowExecutionRepository::saveAll);
+	}
+
+	private void measure(String name, Consumer<List<WorkflowExecution>> writer) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		for (int round = 1; round <= ROUNDS; round++) {
+			workflowExecutionRepository.deleteAllInBatch();
+			long start = System.nanoTime();
+			for (int from = 0; from < DEVICES; from += CHUNK_SIZE) {
+				List<WorkflowExecution> rows = newRows(from, Math.min(from + CHUNK_SIZE, DEVICES));
+				transactionTemplate.executeWithoutResult(status -> writer.accept(rows));
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			assertThat(workflowExecutionRepository.count()).isEqualTo(DEVICES);
+			log.info("{} round {}: {} rows in {}s, {} inserts/s", name, round, DEVICES, "%.2f".formatted(seconds),
+					"%.0f".formatted(DEVICES / seconds));
+		}
+		workflowExecutionRepository.deleteAllInBatch();
+	}
+
+	private List<WorkflowExecution> newRows(int from, int to) {
+		List<WorkflowExecution> rows = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			WorkflowExecution row = new WorkflowExecution();
+			row.setFlowInstanceId(UUID.randomUUID().toString());
+			row.setDeviceId("bench-device-" + i);
+			row.setProcessName("Upgrade Flow");
+			row.setStatus("STARTED");
+			row.setAssignedDtac("bench.dtac");
+			row.setLocalCustomerEmailContact("bench@example.com");
+			rows.add(row);
+		}
+		return rows;
+	}
+}
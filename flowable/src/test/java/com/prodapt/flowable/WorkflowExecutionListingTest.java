@@ -0,0 +1,175 @@
+package com.prodapt.flowable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.flowable.engine.delegate.DelegateExecution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodapt.flowable.delegate.upgrade.ScheduleModifierDelegate;
+import com.prodapt.flowable.entity.WorkflowExecutionSummary;
+import com.prodapt.flowable.service.ElasticsearchService;
+import com.prodapt.flowable.service.EmployeeService;
+
+/**
+ * The workflow listing returns summary rows or only the requested fields without loading tasks, and the
+ * reassignment and rescheduling paths still move a workflow between task slots now that the task is lazy.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest(properties = { "flowable.async-executor-activate=false", "reminder-sweeper.enabled=false" })
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class WorkflowExecutionListingTest {
+
+	private static final ZonedDateTime SLOT = ZonedDateTime.parse("2030-01-07T10:00:00Z");
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@MockitoBean
+	private ElasticsearchService elasticsearchService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private ScheduleModifierDelegate scheduleModifierDelegate;
+
+	@BeforeEach
+	void seed() {
+		jdbcTemplate.update("DELETE FROM workflow_execution");
+		jdbcTemplate.update("DELETE FROM task");
+		jdbcTemplate.update("DELETE FROM employee");
+		for (String dtac : List.of("dtac-1", "dtac-2")) {
+			jdbcTemplate.update("INSERT INTO employee (att_uid, email, role, first_name, last_name, is_active) "
+					+ "VALUES (?, ?, 'DTAC', 'First', 'Last', true)", dtac, dtac + "@att.com");
+		}
+		jdbcTemplate.update("INSERT INTO task (id, start_time, end_time, assigned_user_id, workflow_count) VALUES (?, ?, ?, ?, 2)",
+				"task-1", Timestamp.from(SLOT.toInstant()), Timestamp.from(SLOT.plusHours(1).toInstant()), "dtac-1");
+		for (String flowId : List.of("flow-1", "flow-2")) {
+			jdbcTemplate.update("INSERT INTO workflow_execution (flow_instance_id, device_id, step, created_at, scheduled_time, "
+					+ "assigned_dtac, local_customer_email_contact, local_customer_mobile_contact, process_name, task_id, "
+					+ "completed, status) VALUES (?, ?, 'Scheduled Time', now(), ?, 'dtac-1', 'customer@example.com', '555-0100', "
+					+ "'Upgrade flow', 'task-1', false, 'STARTED')",
+					flowId, "device-" + flowId, Timestamp.from(SLOT.toInstant()));
+		}
+	}
+
+	@Test
+	void defaultRowsAreSummaries() throws Exception {
+		JsonNode page = list("");
+
+		assertThat(page.get("totalElements").asLong()).isEqualTo(2);
+		JsonNode row = page.get("content").get(0);
+		assertThat(fieldNames(row)).containsExactlyElementsOf(WorkflowExecutionSummary.FIELDS);
+	}
+
+	@Test
+	void fieldsSelectOnlyThoseColumns() throws Exception {
+		JsonNode page = list("&fields=deviceId,status");
+
+		for (JsonNode row : page.get("content")) {
+			assertThat(fieldNames(row)).containsExactly("deviceId", "status");
+			assertThat(row.get("status").asText()).isEqualTo("STARTED");
+		}
+	}
+
+	@Test
+	void unknownFieldIsRejected() throws Exception {
+		mockMvc.perform(post("/api/workflow-executions?size=10&fields=deviceId,noSuchField")
+				.contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void reassignmentMovesWorkflowToTheNewDtacsSlot() {
+		employeeService.reassignWorkflow("flow-1", "dtac-2");
+
+		Map<String, Object> workflow = jdbcTemplate.queryForMap(
+				"SELECT w.assigned_dtac, t.assigned_user_id, t.workflow_count FROM workflow_execution w "
+						+ "JOIN task t ON t.id = w.task_id WHERE w.flow_instance_id = 'flow-1'");
+		assertThat(workflow.get("assigned_dtac")).isEqualTo("dtac-2");
+		assertThat(workflow.get("assigned_user_id")).isEqualTo("dtac-2");
+		assertThat(workflow.get("workflow_count")).isEqualTo(1);
+		assertThat(workflowCount("task-1")).isEqualTo(1);
+	}
+
+	@Test
+	void reschedulingMovesWorkflowToTheNewSlot() {
+		ZonedDateTime newSlot = SLOT.plusDays(2);
+		DelegateExecution execution = mock(DelegateExecution.class);
+		when(execution.getProcessInstanceId()).thenReturn("flow-2");
+		when(execution.getVariable("deviceId")).thenReturn("device-flow-2");
+		when(execution.getVariable("newScheduledUpgradeDateTime")).thenReturn(newSlot);
+
+		scheduleModifierDelegate.execute(execution);
+
+		Map<String, Object> workflow = jdbcTemplate.queryForMap(
+				"SELECT w.re_schedule_count, t.start_time, t.assigned_user_id, t.workflow_count FROM workflow_execution w "
+						+ "JOIN task t ON t.id = w.task_id WHERE w.flow_instance_id = 'flow-2'");
+		assertThat(workflow.get("re_schedule_count")).isEqualTo(1);
+		assertThat(((Timestamp) workflow.get("start_time")).toInstant()).isEqualTo(newSlot.toInstant());
+		assertThat(workflow.get("assigned_user_id")).isEqualTo("dtac-1");
+		assertThat(workflow.get("workflow_count")).isEqualTo(1);
+		assertThat(workflowCount("task-1")).isEqualTo(1);
+	}
+
+	private JsonNode list(String query) throws Exception {
+		String body = mockMvc.perform(post("/api/workflow-executions?size=10" + query)
+				.contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private Integer workflowCount(String taskId) {
+		return jdbcTemplate.queryForObject("SELECT workflow_count FROM task WHERE id = ?", Integer.class, taskId);
+	}
+
+	private static List<String> fieldNames(JsonNode row) {
+		List<String> names = new ArrayList<>();
+		row.fieldNames().forEachRemaining(names::add);
+		return names;
+	}
+}
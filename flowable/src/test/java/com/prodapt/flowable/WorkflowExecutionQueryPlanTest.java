@@ -0,0 +1,144 @@
+package com.prodapt.flowable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Checks that the queries behind the workflow listing, the reminder sweeper and DTAC slot lookups are
+ * answered from the indexes of db/migration on a seeded table of 50k workflows, so a dropped index or a
+ * changed query shape shows up as a test failure instead of a slow grid.
+ *
+ * Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class WorkflowExecutionQueryPlanTest {
+
+	private static final int WORKFLOWS = 50_000;
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static Connection connection;
+
+	@BeforeAll
+	static void migrateAndSeed() throws SQLException {
+		Flyway.configure()
+				.dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+				.schemas("app_data")
+				.defaultSchema("app_data")
+				.load()
+				.migrate();
+
+		connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET search_path TO app_data, public");
+			statement.execute("""
+					INSERT INTO employee (att_uid, email, role, first_name, last_name, is_active)
+					SELECT 'dtac-' || n, 'dtac-' || n || '@att.com', 'DTAC', 'First', 'Last', n % 10 <> 0
+					FROM generate_series(1, 50) n""");
+			statement.execute("""
+					INSERT INTO task (id, start_time, end_time, assigned_user_id, workflow_count)
+					SELECT 'task-' || n, timestamptz '2026-01-01' + n * interval '1 hour',
+					       timestamptz '2026-01-01' + (n + 2) * interval '1 hour', 'dtac-' || (n % 50 + 1), 1
+					FROM generate_series(1, 5000) n""");
+			statement.execute("""
+					INSERT INTO workflow_execution (flow_instance_id, device_id, step, created_at, scheduled_time,
+					       local_customer_email_contact, process_name, process_flow_id, task_id, completed, status)
+					SELECT 'flow-' || n, 'device-' || n, 'Scheduled Time',
+					       timestamptz '2025-01-01' + n * interval '10 minutes',
+					       timestamptz '2026-01-01' + (n % 8760) * interval '1 hour',
+					       'customer-' || n || '@example.com', 'Upgrade flow', 'UpgradeFlow:' || (n % 200) || ':1',
+					       'task-' || (n % 5000 + 1), n % 10 <> 0, 'STARTED'
+					FROM generate_series(1, %d) n""".formatted(WORKFLOWS));
+			statement.execute("ANALYZE");
+		}
+	}
+
+	@AfterAll
+	static void close() throws SQLException {
+		if (connection != null) {
+			connection.close();
+		}
+	}
+
+	@Test
+	void deviceIdFilterUsesDeviceIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM workflow_execution WHERE device_id IN ('device-17', 'device-4242')"))
+				.contains("idx_workflow_execution_device_id");
+	}
+
+	@Test
+	void defaultListingUsesCreatedAtIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM workflow_execution ORDER BY created_at DESC, flow_instance_id DESC LIMIT 11"))
+				.contains("idx_workflow_execution_created_at")
+				.doesNotContain("Seq Scan on workflow_execution");
+	}
+
+	@Test
+	void deepCursorPageUsesCreatedAtIndex() throws SQLException {
+		assertThat(plan("""
+				SELECT * FROM workflow_execution
+				WHERE created_at < timestamptz '2025-03-01' OR (created_at = timestamptz '2025-03-01' AND flow_instance_id < 'flow-8500')
+				ORDER BY created_at DESC, flow_instance_id DESC LIMIT 11"""))
+				.contains("idx_workflow_execution_created_at")
+				.doesNotContain("Seq Scan on workflow_execution");
+	}
+
+	@Test
+	void openWorkflowsUsePartialIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM workflow_execution WHERE completed = false ORDER BY created_at DESC, flow_instance_id DESC LIMIT 11"))
+				.contains("idx_workflow_execution_open_created_at");
+	}
+
+	@Test
+	void openUpgradesByScheduledTimeUsePartialIndex() throws SQLException {
+		assertThat(plan("""
+				SELECT * FROM workflow_execution
+				WHERE completed = false AND scheduled_time > timestamptz '2026-03-01' AND scheduled_time <= timestamptz '2026-03-02'
+				ORDER BY scheduled_time, flow_instance_id LIMIT 200"""))
+				.contains("idx_workflow_execution_open_scheduled");
+	}
+
+	@Test
+	void processFlowIdFilterUsesIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM workflow_execution WHERE process_flow_id IN ('UpgradeFlow:7:1')"))
+				.contains("idx_workflow_execution_process_flow_id");
+	}
+
+	@Test
+	void emailContainsFilterUsesTrigramIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM workflow_execution WHERE lower(local_customer_email_contact) LIKE '%customer-4242@%'"))
+				.contains("idx_workflow_execution_email_trgm")
+				.doesNotContain("Seq Scan on workflow_execution");
+	}
+
+	@Test
+	void taskSlotLookupUsesSlotUniqueIndex() throws SQLException {
+		assertThat(plan("SELECT * FROM task WHERE assigned_user_id = 'dtac-7' AND start_time = timestamptz '2026-01-03 06:00+00'"))
+				.contains("uk_task_assigned_user_start_time");
+	}
+
+	private static String plan(String sql) throws SQLException {
+		StringBuilder plan = new StringBuilder();
+		try (Statement statement = connection.createStatement();
+				ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+			while (rows.next()) {
+				plan.append(rows.getString(1)).append('\n');
+			}
+		}
+		return plan.toString();
+	}
+}
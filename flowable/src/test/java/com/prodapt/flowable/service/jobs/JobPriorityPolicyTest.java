@@ -0,0 +1,123 @@
+package com.prodapt.flowable.service.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Set;
+
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntityManager;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.job.service.JobProcessorContext;
+import org.flowable.job.service.impl.persistence.entity.AbstractRuntimeJobEntity;
+import org.flowable.job.service.impl.persistence.entity.JobEntityImpl;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntityImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.prodapt.flowable.config.JobExecutorProperties;
+import com.prodapt.flowable.config.JobExecutorProperties.Lane;
+
+/**
+ * A job's band follows from how far its upgrade's window is from when the job runs, and its lane from the
+ * step; a band given in the model is kept.
+ */
+class JobPriorityPolicyTest {
+
+	private static final Instant NOW = Instant.parse("2030-01-07T10:00:00Z");
+
+	private final ExecutionEntityManager executionEntityManager = mock(ExecutionEntityManager.class);
+	private JobPriorityPolicy policy;
+	private MockedStatic<CommandContextUtil> commandContextUtil;
+
+	@BeforeEach
+	void configure() {
+		JobExecutorProperties properties = new JobExecutorProperties();
+		Lane nfx = new Lane();
+		nfx.getSteps().add("RebootDevice");
+		properties.getLanes().put("nfx", nfx);
+		policy = new JobPriorityPolicy(new JobLanes(properties));
+		ReflectionTestUtils.setField(policy, "enabled", true);
+		ReflectionTestUtils.setField(policy, "criticalWithin", Duration.ofHours(2));
+		ReflectionTestUtils.setField(policy, "backgroundBeyond", Duration.ofDays(4));
+		ReflectionTestUtils.setField(policy, "housekeepingSteps", Set.of("ReminderEmail", "ScheduleModifier"));
+		commandContextUtil = mockStatic(CommandContextUtil.class);
+		commandContextUtil.when(CommandContextUtil::getExecutionEntityManager).thenReturn(executionEntityManager);
+	}
+
+	@AfterEach
+	void close() {
+		commandContextUtil.close();
+	}
+
+	@Test
+	void bandFollowsTheTimeLeftUntilTheWindow() {
+		assertThat(policy.priorityOf("RebootDevice", NOW.plus(Duration.ofHours(2)), NOW)).isEqualTo(JobPriority.CRITICAL);
+		// Window already open
+		assertThat(policy.priorityOf("RebootDevice", NOW.minus(Duration.ofHours(1)), NOW)).isEqualTo(JobPriority.CRITICAL);
+		assertThat(policy.priorityOf("RebootDevice", NOW.plus(Duration.ofHours(3)), NOW)).isEqualTo(JobPriority.NORMAL);
+		assertThat(policy.priorityOf("RebootDevice", NOW.plus(Duration.ofDays(4)), NOW)).isEqualTo(JobPriority.NORMAL);
+		assertThat(policy.priorityOf("RebootDevice", NOW.plus(Duration.ofDays(5)), NOW)).isEqualTo(JobPriority.BACKGROUND);
+		assertThat(policy.priorityOf("RebootDevice", null, NOW)).isEqualTo(JobPriority.NORMAL);
+	}
+
+	@Test
+	void housekeepingIsAlwaysBackground() {
+		assertThat(policy.priorityOf("ReminderEmail", NOW.plus(Duration.ofMinutes(5)), NOW)).isEqualTo(JobPriority.BACKGROUND);
+	}
+
+	@Test
+	void asyncJobGetsTheLaneOfItsStep() {
+		JobEntityImpl job = new JobEntityImpl();
+		process(job, "RebootDevice", Instant.now().plus(Duration.ofHours(1)));
+
+		assertThat(job.getCategory()).isEqualTo("nfx.critical");
+	}
+
+	@Test
+	void timerIsBandedAsOfItsDueDate() {
+		// Due a day before the window: critical by then, though the window is further away now
+		Instant scheduled = Instant.now().plus(Duration.ofDays(6));
+		TimerJobEntityImpl timer = new TimerJobEntityImpl();
+		timer.setDuedate(Date.from(scheduled.minus(Duration.ofHours(1))));
+		process(timer, "preUpgradeTimer", scheduled);
+
+		assertThat(timer.getCategory()).isEqualTo("internal.critical");
+	}
+
+	@Test
+	void bandFromTheModelIsKept() {
+		TimerJobEntityImpl timer = new TimerJobEntityImpl();
+		timer.setCategory("background");
+		timer.setDuedate(Date.from(Instant.now().plus(Duration.ofMinutes(5))));
+		process(timer, "RebootDevice", Instant.now().plus(Duration.ofMinutes(30)));
+
+		assertThat(timer.getCategory()).isEqualTo("nfx.background");
+	}
+
+	private void process(AbstractRuntimeJobEntity job, String step, Instant scheduledTime) {
+		ServiceTask task = new ServiceTask();
+		task.setId("task");
+		task.setImplementation("${" + step + "}");
+		ExecutionEntity execution = mock(ExecutionEntity.class);
+		when(execution.getCurrentFlowElement()).thenReturn(task);
+		when(execution.getVariable(JobPriorityPolicy.SCHEDULED_TIME_VARIABLE)).thenReturn(scheduledTime.atZone(ZoneOffset.UTC));
+		when(executionEntityManager.findById("execution-1")).thenReturn(execution);
+		job.setExecutionId("execution-1");
+
+		JobProcessorContext context = mock(JobProcessorContext.class);
+		when(context.isInPhase(JobProcessorContext.Phase.BEFORE_CREATE)).thenReturn(true);
+		when(context.getJobEntity()).thenReturn(job);
+		policy.process(context);
+	}
+}
@@ -0,0 +1,120 @@
+package com.prodapt.flowable.service.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.flowable.engine.impl.persistence.entity.ExecutionEntity;
+import org.flowable.engine.impl.persistence.entity.ExecutionEntityManager;
+import org.flowable.engine.impl.util.CommandContextUtil;
+import org.flowable.job.service.JobProcessorContext;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntity;
+import org.flowable.job.service.impl.persistence.entity.TimerJobEntityImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Staggered timers move by an offset within the window that only depends on the device, so the same device
+ * gets the same offset every time; critical timers stay as modelled.
+ */
+class TimerSpreadingPolicyTest {
+
+	private static final Duration WINDOW = Duration.ofMinutes(15);
+	private static final Instant SLOT = Instant.parse("2030-01-07T10:00:00Z");
+
+	private final TimerSpreadingPolicy policy = new TimerSpreadingPolicy(new SimpleMeterRegistry());
+	private final ExecutionEntityManager executionEntityManager = mock(ExecutionEntityManager.class);
+	private MockedStatic<CommandContextUtil> commandContextUtil;
+
+	@BeforeEach
+	void configure() {
+		ReflectionTestUtils.setField(policy, "mode", "stagger");
+		ReflectionTestUtils.setField(policy, "window", WINDOW);
+		commandContextUtil = mockStatic(CommandContextUtil.class);
+		commandContextUtil.when(CommandContextUtil::getExecutionEntityManager).thenReturn(executionEntityManager);
+	}
+
+	@AfterEach
+	void close() {
+		commandContextUtil.close();
+	}
+
+	@Test
+	void staggerIsTheSameForADeviceAndWithinTheWindow() {
+		Set<Long> offsets = new HashSet<>();
+		for (int i = 0; i < 500; i++) {
+			String deviceId = "device-" + i;
+			long offset = offset(timer(deviceId, "internal.normal", SLOT));
+
+			assertThat(offset).isBetween(0L, WINDOW.toMillis() - 1);
+			// Another timer of the same device, e.g. the next reminder, moves by the same offset
+			assertThat(offset(timer(deviceId, "internal.background", SLOT.plus(Duration.ofDays(1))))).isEqualTo(offset);
+			offsets.add(offset);
+		}
+
+		// Spread over the window rather than bunched up
+		assertThat(offsets).hasSizeGreaterThan(490);
+		assertThat(offsets.stream().mapToLong(Long::longValue).min().getAsLong()).isLessThan(WINDOW.toMillis() / 10);
+		assertThat(offsets.stream().mapToLong(Long::longValue).max().getAsLong()).isGreaterThan(WINDOW.toMillis() * 9 / 10);
+	}
+
+	@Test
+	void criticalTimersAreNotMoved() {
+		assertThat(offset(timer("device-1", "nfx.critical", SLOT))).isZero();
+		assertThat(offset(timer("device-1", "critical", SLOT))).isZero();
+	}
+
+	@Test
+	void offLeavesTimersAsModelled() {
+		ReflectionTestUtils.setField(policy, "mode", "off");
+
+		assertThat(offset(timer("device-1", "internal.normal", SLOT))).isZero();
+	}
+
+	@Test
+	void jitterStaysWithinTheWindow() {
+		ReflectionTestUtils.setField(policy, "mode", "jitter");
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(offset(timer("device-1", "internal.normal", SLOT))).isBetween(0L, WINDOW.toMillis() - 1);
+		}
+	}
+
+	private long offset(TimerJobEntity timer) {
+		long before = timer.getDuedate().getTime();
+		JobProcessorContext context = mock(JobProcessorContext.class);
+		when(context.isInPhase(JobProcessorContext.Phase.BEFORE_CREATE)).thenReturn(true);
+		when(context.getJobEntity()).thenReturn(timer);
+
+		policy.process(context);
+
+		return timer.getDuedate().getTime() - before;
+	}
+
+	private TimerJobEntity timer(String deviceId, String category, Instant dueDate) {
+		String executionId = "execution-" + deviceId;
+		ExecutionEntity execution = mock(ExecutionEntity.class);
+		when(execution.getVariable(TimerSpreadingPolicy.DEVICE_ID_VARIABLE)).thenReturn(deviceId);
+		when(executionEntityManager.findById(executionId)).thenReturn(execution);
+
+		TimerJobEntity timer = new TimerJobEntityImpl();
+		timer.setExecutionId(executionId);
+		// Distinct per timer, so the offset can only come from the device
+		timer.setProcessInstanceId("process-" + deviceId + "-" + category);
+		timer.setCategory(category);
+		timer.setDuedate(Date.from(dueDate));
+		return timer;
+	}
+}
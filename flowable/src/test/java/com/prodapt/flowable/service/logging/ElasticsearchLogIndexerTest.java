@@ -0,0 +1,82 @@
+package com.prodapt.flowable.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.prodapt.flowable.entity.LogEntry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * While Elasticsearch is stuck the ring buffer fills up; further entries are dropped and counted without
+ * blocking the caller, and what was buffered is indexed once Elasticsearch answers again.
+ */
+class ElasticsearchLogIndexerTest {
+
+	@Test
+	void fullBufferDropsAndCountsEntries() throws Exception {
+		CountDownLatch elasticsearchAnswers = new CountDownLatch(1);
+		ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+		IndexOperations indexOps = mock(IndexOperations.class);
+		when(indexOps.exists()).thenReturn(true);
+		when(operations.indexOps(LogEntry.class)).thenReturn(indexOps);
+		when(operations.bulkIndex(anyList(), eq(LogEntry.class))).thenAnswer(invocation -> {
+			elasticsearchAnswers.await();
+			return List.of();
+		});
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+		ElasticsearchLogIndexer indexer = new ElasticsearchLogIndexer();
+		ReflectionTestUtils.setField(indexer, "elasticsearchOperations", operations);
+		ReflectionTestUtils.setField(indexer, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(indexer, "enabled", true);
+		ReflectionTestUtils.setField(indexer, "bufferSize", 4);
+		ReflectionTestUtils.setField(indexer, "batchSize", 2);
+		ReflectionTestUtils.setField(indexer, "flushIntervalMs", 3_600_000L);
+		ReflectionTestUtils.setField(indexer, "maxRetries", 0);
+		indexer.start();
+		try {
+			// The first batch is taken by the flusher, which then waits for Elasticsearch
+			assertThat(indexer.enqueue(entry(0))).isTrue();
+			assertThat(indexer.enqueue(entry(1))).isTrue();
+			verify(operations, timeout(5_000)).bulkIndex(anyList(), eq(LogEntry.class));
+
+			for (int i = 2; i < 6; i++) {
+				assertThat(indexer.enqueue(entry(i))).isTrue();
+			}
+			assertThat(indexer.enqueue(entry(6))).isFalse();
+			assertThat(indexer.enqueue(entry(7))).isFalse();
+
+			assertThat(meterRegistry.counter("es.log.indexer.dropped").count()).isEqualTo(2);
+			assertThat(meterRegistry.counter("es.log.indexer.enqueued").count()).isEqualTo(6);
+		} finally {
+			elasticsearchAnswers.countDown();
+			indexer.stop();
+		}
+
+		assertThat(meterRegistry.counter("es.log.indexer.indexed").count()).isEqualTo(6);
+		assertThat(meterRegistry.counter("es.log.indexer.failed").count()).isZero();
+	}
+
+	private static LogEntry entry(int i) {
+		LogEntry entry = new LogEntry();
+		entry.setId("entry-" + i);
+		entry.setFlowInstanceId("flow-1");
+		entry.setMessage("message " + i);
+		return entry;
+	}
+}
@@ -0,0 +1,106 @@
+package com.prodapt.flowable.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ordering across wraparound, rejection when full and many producers with one consumer.
+ */
+class LogEventRingBufferTest {
+
+	@Test
+	void capacityIsRoundedUpToAPowerOfTwo() {
+		assertThat(new LogEventRingBuffer<String>(5).capacity()).isEqualTo(8);
+		assertThat(new LogEventRingBuffer<String>(8).capacity()).isEqualTo(8);
+	}
+
+	@Test
+	void fullBufferRejectsUntilDrained() {
+		LogEventRingBuffer<Integer> buffer = new LogEventRingBuffer<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(buffer.offer(i)).isTrue();
+		}
+
+		assertThat(buffer.offer(4)).isFalse();
+		assertThat(buffer.size()).isEqualTo(4);
+
+		List<Integer> drained = new ArrayList<>();
+		assertThat(buffer.drainTo(drained, 1)).isEqualTo(1);
+		assertThat(buffer.offer(4)).isTrue();
+		buffer.drainTo(drained, 10);
+		assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+	}
+
+	@Test
+	void keepsOrderAcrossWraparound() {
+		LogEventRingBuffer<Integer> buffer = new LogEventRingBuffer<>(4);
+		List<Integer> drained = new ArrayList<>();
+		int next = 0;
+		// Three per round, so the slots used shift every round and wrap many times
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 3; i++) {
+				assertThat(buffer.offer(next++)).isTrue();
+			}
+			assertThat(buffer.drainTo(drained, 2)).isEqualTo(2);
+			buffer.drainTo(drained, 10);
+			assertThat(buffer.size()).isZero();
+		}
+
+		assertThat(drained).hasSize(30);
+		for (int i = 0; i < drained.size(); i++) {
+			assertThat(drained.get(i)).isEqualTo(i);
+		}
+	}
+
+	@Test
+	void concurrentProducersLoseNothing() throws Exception {
+		int producers = 4;
+		int perProducer = 20_000;
+		LogEventRingBuffer<long[]> buffer = new LogEventRingBuffer<>(256);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int p = 0; p < producers; p++) {
+				long producer = p;
+				futures.add(executor.submit(() -> {
+					for (long i = 0; i < perProducer; i++) {
+						while (!buffer.offer(new long[] { producer, i })) {
+							Thread.onSpinWait();
+						}
+					}
+				}));
+			}
+
+			long[] nextPerProducer = new long[producers];
+			List<long[]> batch = new ArrayList<>();
+			int received = 0;
+			long deadline = System.currentTimeMillis() + 30_000;
+			while (received < producers * perProducer) {
+				assertThat(System.currentTimeMillis()).as("producers still running").isLessThan(deadline);
+				batch.clear();
+				buffer.drainTo(batch, 100);
+				for (long[] element : batch) {
+					// Each producer's elements come out in the order it offered them
+					assertThat(element[1]).isEqualTo(nextPerProducer[(int) element[0]]);
+					nextPerProducer[(int) element[0]]++;
+				}
+				received += batch.size();
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+			assertThat(nextPerProducer).containsOnly(perProducer);
+			assertThat(buffer.size()).isZero();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
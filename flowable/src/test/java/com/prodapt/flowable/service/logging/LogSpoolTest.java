@@ -0,0 +1,223 @@
+package com.prodapt.flowable.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.prodapt.flowable.entity.LogEntry;
+
+/**
+ * Replay order, recovery of a spool left by a previous run (CRC check, torn tail) and eviction of the oldest
+ * segment once the spool is full.
+ */
+class LogSpoolTest {
+
+	private static final long SEGMENT_BYTES = 1024 * 1024;
+	// About 8KB per record, so a segment holds a little over a hundred
+	private static final String LONG_MESSAGE = "x".repeat(8000);
+	private static final int HEADER_BYTES = 8;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replaysEntriesInAppendOrderAcrossSegments() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		for (int i = 0; i < 300; i += 30) {
+			spool.append(entries(i, 30, LONG_MESSAGE));
+		}
+		assertThat(spool.segmentCount()).isGreaterThan(1);
+
+		List<LogEntry> replayed = drain(spool, 50);
+
+		assertThat(ids(replayed)).containsExactlyElementsOf(expectedIds(0, 300));
+		assertThat(replayed.get(0).getMessage()).isEqualTo(LONG_MESSAGE);
+		assertThat(spool.isEmpty()).isTrue();
+		assertThat(spool.segmentCount()).isZero();
+		assertThat(segmentFiles()).isEmpty();
+	}
+
+	@Test
+	void uncommittedReadIsReadAgain() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		spool.append(entries(0, 5, "message"));
+
+		List<LogEntry> first = new ArrayList<>();
+		spool.read(first, 3);
+		List<LogEntry> again = new ArrayList<>();
+		spool.read(again, 3);
+
+		assertThat(ids(again)).isEqualTo(ids(first)).containsExactly("entry-0", "entry-1", "entry-2");
+	}
+
+	@Test
+	void reopenedSpoolReplaysItsSegmentsFromTheStart() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		spool.append(entries(0, 10, "message"));
+		List<LogEntry> batch = new ArrayList<>();
+		spool.read(batch, 4);
+		spool.commit();
+
+		LogSpool reopened = new LogSpool(directory, SEGMENT_BYTES, 8);
+
+		// The read position is not persisted: a restart replays the whole segment again
+		assertThat(ids(drain(reopened, 100))).containsExactlyElementsOf(expectedIds(0, 10));
+	}
+
+	@Test
+	void recoveryStopsAtRecordWithBadCrc() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		spool.append(entries(0, 5, "message"));
+		Path segment = segmentFiles().get(0);
+		corruptPayload(segment, recordOffsets(segment).get(2));
+
+		LogSpool reopened = new LogSpool(directory, SEGMENT_BYTES, 8);
+		reopened.append(entries(5, 1, "message"));
+
+		// Records after the corrupt one are zeroed; appending continues where the valid data ends
+		assertThat(ids(drain(reopened, 100))).containsExactly("entry-0", "entry-1", "entry-5");
+	}
+
+	@Test
+	void readSkipsTheRestOfASegmentAfterABadCrc() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		spool.append(entries(0, 5, "message"));
+		Path segment = segmentFiles().get(0);
+		// Written through the file, seen by the spool's mapping of it
+		corruptPayload(segment, recordOffsets(segment).get(3));
+
+		assertThat(ids(drain(spool, 100))).containsExactly("entry-0", "entry-1", "entry-2");
+		assertThat(spool.isEmpty()).isTrue();
+	}
+
+	@Test
+	void tornTailIsZeroedOnRecovery() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 8);
+		spool.append(entries(0, 3, "message"));
+		Path segment = segmentFiles().get(0);
+		List<Integer> offsets = recordOffsets(segment);
+		int end = offsets.get(offsets.size() - 1);
+
+		// A record whose length made it to the file but whose payload did not
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer torn = ByteBuffer.allocate(20);
+			torn.putInt(1000).putInt(0x12345678).putInt(7).putInt(7).putInt(7).flip();
+			channel.write(torn, end);
+		}
+
+		LogSpool reopened = new LogSpool(directory, SEGMENT_BYTES, 8);
+
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			ByteBuffer tail = ByteBuffer.allocate(20);
+			channel.read(tail, end);
+			assertThat(tail.array()).containsOnly(0);
+		}
+		reopened.append(entries(3, 1, "message"));
+		assertThat(ids(drain(reopened, 100))).containsExactlyElementsOf(expectedIds(0, 4));
+	}
+
+	@Test
+	void fullSpoolDiscardsTheOldestSegment() throws IOException {
+		LogSpool spool = new LogSpool(directory, SEGMENT_BYTES, 2);
+		for (int i = 0; i < 400; i += 20) {
+			spool.append(entries(i, 20, LONG_MESSAGE));
+		}
+
+		assertThat(spool.droppedSegments()).isPositive();
+		assertThat(spool.segmentCount()).isEqualTo(2);
+		assertThat(segmentFiles()).hasSize(2);
+
+		// What is left is the newest entries, still in order and without gaps
+		List<String> replayed = ids(drain(spool, 50));
+		int first = Integer.parseInt(replayed.get(0).substring("entry-".length()));
+		assertThat(first).isPositive();
+		assertThat(replayed).containsExactlyElementsOf(expectedIds(first, 400));
+	}
+
+	private static List<LogEntry> drain(LogSpool spool, int batchSize) throws IOException {
+		List<LogEntry> replayed = new ArrayList<>();
+		while (!spool.isEmpty()) {
+			List<LogEntry> batch = new ArrayList<>();
+			if (spool.read(batch, batchSize) == 0) {
+				spool.commit();
+				continue;
+			}
+			spool.commit();
+			replayed.addAll(batch);
+		}
+		return replayed;
+	}
+
+	private static List<LogEntry> entries(int from, int count, String message) {
+		List<LogEntry> entries = new ArrayList<>();
+		for (int i = from; i < from + count; i++) {
+			LogEntry entry = new LogEntry();
+			entry.setId("entry-" + i);
+			entry.setFlowInstanceId("flow-1");
+			entry.setDeviceId("device-1");
+			entry.setStep("step");
+			entry.setStatus("FAILED");
+			entry.setMessage(message);
+			entry.setTimestamp((long) i);
+			entries.add(entry);
+		}
+		return entries;
+	}
+
+	private static List<String> ids(List<LogEntry> entries) {
+		return entries.stream().map(LogEntry::getId).toList();
+	}
+
+	private static List<String> expectedIds(int from, int to) {
+		return IntStream.range(from, to).mapToObj(i -> "entry-" + i).toList();
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> listing = Files.list(directory)) {
+			return listing.filter(path -> path.getFileName().toString().endsWith(".spool")).sorted().toList();
+		}
+	}
+
+	/**
+	 * Offsets of the records in a segment followed by the offset where the written data ends.
+	 */
+	private static List<Integer> recordOffsets(Path segment) throws IOException {
+		List<Integer> offsets = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			int position = HEADER_BYTES;
+			while (true) {
+				offsets.add(position);
+				length.clear();
+				channel.read(length, position);
+				int value = length.getInt(0);
+				if (value <= 0) {
+					return offsets;
+				}
+				position += 8 + value;
+			}
+		}
+	}
+
+	private static void corruptPayload(Path segment, int recordOffset) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer payload = ByteBuffer.allocate(1);
+			// Last byte of the timestamp, the first field of the payload
+			channel.read(payload, recordOffset + 8 + 7);
+			payload.put(0, (byte) (payload.get(0) ^ 0xFF)).rewind();
+			channel.write(payload, recordOffset + 8 + 7);
+		}
+	}
+}
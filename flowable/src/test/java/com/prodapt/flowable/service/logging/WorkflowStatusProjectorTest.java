@@ -0,0 +1,158 @@
+package com.prodapt.flowable.service.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.prodapt.flowable.service.WorkflowExecutionUpdater;
+
+/**
+ * The status projection and WorkflowExecutionUpdater write the same status column: a versioned write that read
+ * the row before a projection retries, and the projection does not replace statuses set by a user action with
+ * older events. The flusher is not left to run on its own; each test flushes explicitly.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest(properties = { "flowable.async-executor-activate=false", "reminder-sweeper.enabled=false",
+		"workflow-status.flush-interval-ms=3600000", "workflow-execution.update.max-attempts=100",
+		"workflow-execution.update.retry-delay-ms=1" })
+@Testcontainers(disabledWithoutDocker = true)
+class WorkflowStatusProjectorTest {
+
+	private static final String FLOW_ID = "flow-1";
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private WorkflowStatusProjector projector;
+
+	@Autowired
+	private WorkflowExecutionUpdater updater;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seed() {
+		projector.flush();
+		jdbcTemplate.update("DELETE FROM workflow_execution");
+		jdbcTemplate.update("INSERT INTO workflow_execution (flow_instance_id, device_id, completed, status, re_schedule_count) "
+				+ "VALUES (?, 'device-1', false, 'STARTED', 0)", FLOW_ID);
+	}
+
+	@Test
+	void versionedWriteRetriesAfterProjection() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		updater.update(FLOW_ID, workflow -> {
+			if (attempts.getAndIncrement() == 0) {
+				// Projected on another connection after this attempt read the row
+				projector.record(FLOW_ID, "schedule-modifier", "SUCCESS", "Schedule modified");
+				CompletableFuture.runAsync(projector::flush).join();
+			}
+			workflow.setStatus("RESCHEDULED");
+		});
+
+		Map<String, Object> row = row();
+		assertThat(attempts).hasValue(2);
+		assertThat(row.get("status")).isEqualTo("RESCHEDULED");
+		assertThat(row.get("step")).isEqualTo("schedule-modifier");
+		assertThat(row.get("version")).isEqualTo(2L);
+	}
+
+	@Test
+	void olderEventDoesNotReplaceReschedule() throws InterruptedException {
+		projector.record(FLOW_ID, "schedule-modifier", "SUCCESS", "Schedule modified");
+		Thread.sleep(5);
+		updater.update(FLOW_ID, workflow -> workflow.setStatus("RESCHEDULED"));
+
+		projector.flush();
+		assertThat(row().get("status")).isEqualTo("RESCHEDULED");
+		assertThat(row().get("step")).isEqualTo("schedule-modifier");
+
+		Thread.sleep(5);
+		projector.record(FLOW_ID, "pre-upgrade-check", "STARTED", "Pre-upgrade checks");
+		projector.flush();
+		assertThat(row().get("status")).isEqualTo("STARTED");
+		assertThat(row().get("step")).isEqualTo("pre-upgrade-check");
+	}
+
+	@Test
+	void abortedIsKept() throws InterruptedException {
+		updater.update(FLOW_ID, workflow -> workflow.setStatus("ABORTED"));
+		Thread.sleep(5);
+
+		projector.record(FLOW_ID, "reboot-device", "SUCCESS", "Device rebooted");
+		projector.flush();
+
+		assertThat(row().get("status")).isEqualTo("ABORTED");
+		assertThat(row().get("step")).isEqualTo("reboot-device");
+	}
+
+	@Test
+	void concurrentProjectionsDoNotLoseVersionedWrites() throws Exception {
+		int writers = 8;
+		int writesPerWriter = 20;
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicInteger projections = new AtomicInteger();
+		try (ExecutorService executor = Executors.newFixedThreadPool(writers + 1)) {
+			Future<?> projecting = executor.submit(() -> {
+				while (writing.get()) {
+					projector.record(FLOW_ID, "image-staging", "STARTED", "Staging image " + projections.incrementAndGet());
+					projector.flush();
+				}
+			});
+			List<Future<?>> updates = new ArrayList<>();
+			for (int i = 0; i < writers; i++) {
+				updates.add(executor.submit(() -> {
+					for (int j = 0; j < writesPerWriter; j++) {
+						updater.update(FLOW_ID, workflow -> workflow.setReScheduleCount(workflow.getReScheduleCount() + 1));
+					}
+				}));
+			}
+			for (Future<?> update : updates) {
+				update.get();
+			}
+			writing.set(false);
+			projecting.get();
+		}
+
+		// Every versioned write and every projection was applied exactly once
+		Map<String, Object> row = row();
+		assertThat(row.get("re_schedule_count")).isEqualTo(writers * writesPerWriter);
+		assertThat(row.get("status")).isEqualTo("STARTED");
+		assertThat(row.get("version")).isEqualTo((long) writers * writesPerWriter + projections.get());
+	}
+
+	private Map<String, Object> row() {
+		return jdbcTemplate.queryForMap("SELECT step, status, version, re_schedule_count FROM workflow_execution "
+				+ "WHERE flow_instance_id = ?", FLOW_ID);
+	}
+}
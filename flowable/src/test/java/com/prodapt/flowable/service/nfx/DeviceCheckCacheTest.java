@@ -0,0 +1,111 @@
+package com.prodapt.flowable.service.nfx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cached answers expire a ttl after NFX gave them, even when they are put again from the cache, and a step
+ * that changes the device drops all of its answers.
+ */
+class DeviceCheckCacheTest {
+
+	private static final Duration TTL = Duration.ofMillis(500);
+	private static final String BIOS = "/verify_and_upgrade_bios";
+	private static final String NIC = "/verify_and_upgrade_nic";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final DeviceCheckCache cache = new DeviceCheckCache();
+
+	@BeforeEach
+	void configure() {
+		ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "ttl", TTL);
+		ReflectionTestUtils.setField(cache, "maxDevices", 2);
+		cache.init();
+	}
+
+	@Test
+	void answersRepeatChecksUntilTheTtlEnds() throws InterruptedException {
+		assertThat(cache.get("device-1", BIOS)).isNull();
+		cache.put("device-1", BIOS, ResponseEntity.ok("compatible"));
+
+		ResponseEntity<String> cached = cache.get("device-1", BIOS);
+		assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(cached.getBody()).isEqualTo("compatible");
+		assertThat(cache.get("device-1", NIC)).isNull();
+
+		Thread.sleep(TTL.toMillis() + 100);
+		assertThat(cache.get("device-1", BIOS)).isNull();
+		assertThat(meterRegistry.counter("device.check.cache.hits").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("device.check.cache.misses").count()).isEqualTo(3);
+	}
+
+	@Test
+	void puttingACachedAnswerAgainDoesNotExtendItsTtl() throws InterruptedException {
+		cache.put("device-1", BIOS, ResponseEntity.ok("first"));
+		Thread.sleep(TTL.toMillis() * 3 / 5);
+
+		// As the delegate does after answering from the cache
+		cache.put("device-1", BIOS, cache.get("device-1", BIOS));
+		cache.put("device-1", BIOS, ResponseEntity.ok("second"));
+		assertThat(cache.get("device-1", BIOS).getBody()).isEqualTo("first");
+
+		Thread.sleep(TTL.toMillis() * 3 / 5);
+		assertThat(cache.get("device-1", BIOS)).isNull();
+
+		// Once expired a new answer replaces it
+		cache.put("device-1", BIOS, ResponseEntity.ok("second"));
+		assertThat(cache.get("device-1", BIOS).getBody()).isEqualTo("second");
+	}
+
+	@Test
+	void invalidationDropsEveryAnswerOfTheDevice() {
+		cache.put("device-1", BIOS, ResponseEntity.ok("bios"));
+		cache.put("device-1", NIC, ResponseEntity.ok("nic"));
+		cache.put("device-2", BIOS, ResponseEntity.ok("bios"));
+
+		cache.invalidate("device-1");
+		cache.invalidate("device-3");
+
+		assertThat(cache.get("device-1", BIOS)).isNull();
+		assertThat(cache.get("device-1", NIC)).isNull();
+		assertThat(cache.get("device-2", BIOS)).isNotNull();
+		assertThat(meterRegistry.counter("device.check.cache.invalidations").count()).isEqualTo(1);
+	}
+
+	@Test
+	void onlySuccessfulAnswersOfAtMostMaxDevicesAreCached() {
+		cache.put("device-1", BIOS, ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("failed"));
+		assertThat(cache.get("device-1", BIOS)).isNull();
+
+		cache.put("device-1", BIOS, ResponseEntity.ok("bios"));
+		cache.put("device-2", BIOS, ResponseEntity.ok("bios"));
+		cache.put("device-3", BIOS, ResponseEntity.ok("bios"));
+
+		assertThat(cache.get("device-3", BIOS)).isNull();
+		// Devices already cached still take new endpoints
+		cache.put("device-1", NIC, ResponseEntity.ok("nic"));
+		assertThat(cache.get("device-1", NIC)).isNotNull();
+	}
+
+	@Test
+	void sweepRemovesExpiredAnswers() throws InterruptedException {
+		cache.put("device-1", BIOS, ResponseEntity.ok("bios"));
+		Thread.sleep(TTL.toMillis() + 100);
+
+		cache.evictExpired();
+
+		assertThat(meterRegistry.get("device.check.cache.devices").gauge().value()).isZero();
+	}
+}
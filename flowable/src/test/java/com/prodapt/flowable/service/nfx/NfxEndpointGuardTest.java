@@ -0,0 +1,150 @@
+package com.prodapt.flowable.service.nfx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.prodapt.flowable.config.NfxClientProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The breaker of an endpoint goes CLOSED, OPEN, HALF_OPEN and back, and its bulkhead rejects calls past
+ * max-concurrent-calls; rejected calls never reach the network.
+ */
+class NfxEndpointGuardTest {
+
+	private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+	private final NfxClientProperties properties = new NfxClientProperties();
+	private final NfxEndpointGuard guard = new NfxEndpointGuard();
+	private final AtomicInteger sent = new AtomicInteger();
+
+	@BeforeEach
+	void configure() {
+		NfxClientProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+		breaker.setSlidingWindowSize(4);
+		breaker.setMinimumCalls(4);
+		breaker.setFailureRateThreshold(50);
+		breaker.setOpenDuration(OPEN_DURATION);
+		breaker.setHalfOpenCalls(1);
+		ReflectionTestUtils.setField(guard, "properties", properties);
+		ReflectionTestUtils.setField(guard, "meterRegistry", new SimpleMeterRegistry());
+	}
+
+	@Test
+	void breakerOpensThenClosesAfterASuccessfulProbe() throws Exception {
+		call(HttpStatus.OK);
+		call(HttpStatus.INTERNAL_SERVER_ERROR);
+		call(HttpStatus.OK);
+		assertThat(state()).isEqualTo("CLOSED");
+		call(HttpStatus.INTERNAL_SERVER_ERROR);
+
+		// Two failures in four calls: open, and calls are rejected without being sent
+		assertThat(state()).isEqualTo("OPEN");
+		int sentBefore = sent.get();
+		assertThatThrownBy(() -> call(HttpStatus.OK)).isInstanceOfSatisfying(NfxCallRejectedException.class,
+				e -> assertThat(e.isBulkheadFull()).isFalse());
+		assertThat(sent.get()).isEqualTo(sentBefore);
+
+		Thread.sleep(OPEN_DURATION.toMillis() + 50);
+		// The probe goes through; other calls wait for its outcome
+		call(execution((request, body) -> {
+			assertThat(state()).isEqualTo("HALF_OPEN");
+			assertThatThrownBy(() -> call(HttpStatus.OK)).isInstanceOf(NfxCallRejectedException.class);
+			return response(HttpStatus.OK);
+		}));
+
+		assertThat(state()).isEqualTo("CLOSED");
+		call(HttpStatus.OK);
+		assertThat(snapshot().get("rejectedOpen")).isEqualTo(2L);
+	}
+
+	@Test
+	void failedProbeOpensTheBreakerAgain() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			call(HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		assertThat(state()).isEqualTo("OPEN");
+
+		Thread.sleep(OPEN_DURATION.toMillis() + 50);
+		call(HttpStatus.BAD_GATEWAY);
+
+		assertThat(state()).isEqualTo("OPEN");
+		assertThatThrownBy(() -> call(HttpStatus.OK)).isInstanceOf(NfxCallRejectedException.class);
+	}
+
+	@Test
+	void clientErrorsDoNotOpenTheBreaker() throws Exception {
+		for (int i = 0; i < 8; i++) {
+			call(HttpStatus.BAD_REQUEST);
+		}
+
+		assertThat(state()).isEqualTo("CLOSED");
+	}
+
+	@Test
+	void bulkheadRejectsCallsPastTheLimit() throws Exception {
+		properties.getBulkhead().setMaxConcurrentCalls(1);
+
+		call(execution((request, body) -> {
+			// The one slot is taken by this call
+			assertThatThrownBy(() -> call(HttpStatus.OK)).isInstanceOfSatisfying(NfxCallRejectedException.class,
+					e -> assertThat(e.isBulkheadFull()).isTrue());
+			assertThat(snapshot().get("activeCalls")).isEqualTo(1);
+			return response(HttpStatus.OK);
+		}));
+
+		// Its slot is free again, and a rejected call does not count against the breaker
+		call(HttpStatus.OK);
+		assertThat(snapshot().get("activeCalls")).isEqualTo(0);
+		assertThat(snapshot().get("rejectedBulkhead")).isEqualTo(1L);
+		assertThat(snapshot().get("failedCalls")).isEqualTo(0);
+		assertThat(sent.get()).isEqualTo(2);
+	}
+
+	private void call(HttpStatus status) throws IOException {
+		call(execution((request, body) -> response(status)));
+	}
+
+	private void call(ClientHttpRequestExecution execution) throws IOException {
+		guard.intercept(new MockClientHttpRequest(HttpMethod.POST, URI.create("http://nfx.example/reboot_device")), new byte[0], execution)
+				.close();
+	}
+
+	/**
+	 * Counts the calls that were actually sent.
+	 */
+	private ClientHttpRequestExecution execution(ClientHttpRequestExecution target) {
+		return (request, body) -> {
+			sent.incrementAndGet();
+			return target.execute(request, body);
+		};
+	}
+
+	private static MockClientHttpResponse response(HttpStatus status) {
+		return new MockClientHttpResponse(new byte[0], status);
+	}
+
+	private String state() {
+		return (String) snapshot().get("state");
+	}
+
+	private Map<String, Object> snapshot() {
+		return guard.snapshot().get(0);
+	}
+}
@@ -0,0 +1,146 @@
+package com.prodapt.flowable.service.reminder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.prodapt.flowable.service.ElasticsearchService;
+import com.prodapt.flowable.service.EmailService;
+
+/**
+ * Two sweepers, as on two nodes, sweeping the same due reminders at once send each (device, slot) once, and a
+ * reminder whose send failed is sent by the next sweep.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest(properties = { "flowable.async-executor-activate=false", "reminder-sweeper.enabled=true",
+		"reminder-sweeper.interval-ms=3600000", "reminder-sweeper.batch-size=7" })
+@Testcontainers(disabledWithoutDocker = true)
+class ReminderSweeperTest {
+
+	private static final int DEVICES = 40;
+
+	@Container
+	private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@MockitoBean
+	private ElasticsearchService elasticsearchService;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@Autowired
+	private ReminderSweeper reminderSweeper;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seed() {
+		jdbcTemplate.update("DELETE FROM reminder_dispatch");
+		jdbcTemplate.update("DELETE FROM workflow_execution");
+		// D-3 came due an hour ago for every device
+		Instant scheduled = Instant.now().truncatedTo(ChronoUnit.SECONDS).plus(Duration.ofDays(3)).minus(Duration.ofHours(1));
+		for (int i = 0; i < DEVICES; i++) {
+			jdbcTemplate.update("INSERT INTO workflow_execution (flow_instance_id, device_id, step, created_at, scheduled_time, "
+					+ "local_customer_email_contact, process_name, completed, status) "
+					+ "VALUES (?, ?, 'Scheduled Time', ?, ?, 'customer@example.com', 'Upgrade flow', false, 'STARTED')",
+					"flow-" + i, "device-" + i, Timestamp.from(scheduled.minus(Duration.ofDays(10))), Timestamp.from(scheduled));
+		}
+	}
+
+	@Test
+	void concurrentSweepersSendEachReminderOnce() throws Exception {
+		Map<String, Integer> sends = new ConcurrentHashMap<>();
+		when(emailService.sendReminderEmail(anyString(), anyString(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+			sends.merge(invocation.getArgument(1), 1, Integer::sum);
+			return true;
+		});
+		// A second node's sweeper, sharing only the database
+		ReminderSweeper otherNode = applicationContext.getAutowireCapableBeanFactory().createBean(ReminderSweeper.class);
+
+		CyclicBarrier start = new CyclicBarrier(4);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> sweeps = new ArrayList<>();
+			for (ReminderSweeper sweeper : List.of(reminderSweeper, otherNode, reminderSweeper, otherNode)) {
+				sweeps.add(executor.submit(() -> {
+					start.await();
+					sweeper.sweep();
+					return null;
+				}));
+			}
+			for (Future<?> sweep : sweeps) {
+				sweep.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(sends).hasSize(DEVICES);
+		assertThat(sends.values()).containsOnly(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reminder_dispatch WHERE slot = 'D-3'", Integer.class))
+				.isEqualTo(DEVICES);
+
+		// Nothing is left to send
+		reminderSweeper.sweep();
+		otherNode.sweep();
+		assertThat(sends.values()).containsOnly(1);
+	}
+
+	@Test
+	void failedSendIsRetriedByTheNextSweep() {
+		when(emailService.sendReminderEmail(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(true);
+		when(emailService.sendReminderEmail(anyString(), eq("device-0"), anyString(), anyString(), any())).thenReturn(false, true);
+
+		reminderSweeper.sweep();
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reminder_dispatch WHERE device_id = 'device-0'", Integer.class))
+				.isZero();
+
+		reminderSweeper.sweep();
+		verify(emailService, times(2)).sendReminderEmail(anyString(), eq("device-0"), anyString(), anyString(), any());
+		verify(emailService, times(1)).sendReminderEmail(anyString(), eq("device-1"), anyString(), anyString(), any());
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reminder_dispatch WHERE device_id = 'device-0'", Integer.class))
+				.isEqualTo(1);
+	}
+}